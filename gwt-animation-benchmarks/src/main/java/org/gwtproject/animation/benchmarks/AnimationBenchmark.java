@@ -0,0 +1,175 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gwtproject.animation.client.Animation;
+import org.gwtproject.animation.client.AnimationScheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the hot paths of {@link Animation}: the updates of a single animation in steady state,
+ * a frame of many concurrent animations, and storms of cancellations and restarts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimationBenchmark {
+
+  /** The duration of the animations, long enough for the benchmarks never to complete them. */
+  private static final int DURATION = 1_000_000_000;
+
+  /** The duration of a frame, in milliseconds. */
+  private static final double FRAME = 16;
+
+  /** A single running animation. */
+  @State(Scope.Thread)
+  public static class Single {
+    @Param({ManualScheduler.STUB, ManualScheduler.COALESCING})
+    String scheduler;
+
+    ManualScheduler frames;
+    BenchmarkAnimation animation;
+    double time;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+      frames = ManualScheduler.create(scheduler);
+      animation = new BenchmarkAnimation(frames.scheduler());
+      time = 0;
+      animation.run(DURATION, time);
+    }
+  }
+
+  /** Many running animations. */
+  @State(Scope.Thread)
+  public static class Concurrent {
+    @Param({ManualScheduler.STUB, ManualScheduler.COALESCING})
+    String scheduler;
+
+    @Param({"10000"})
+    int count;
+
+    ManualScheduler frames;
+    BenchmarkAnimation[] animations;
+    double time;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+      frames = ManualScheduler.create(scheduler);
+      animations = new BenchmarkAnimation[count];
+      time = 0;
+      for (int i = 0; i < count; i++) {
+        animations[i] = new BenchmarkAnimation(frames.scheduler());
+        animations[i].run(DURATION, time);
+      }
+    }
+
+    /** Run again the animations canceled by the previous invocation. */
+    void runAll() {
+      for (BenchmarkAnimation animation : animations) {
+        if (!animation.isRunning()) {
+          animation.run(DURATION, time);
+        }
+      }
+    }
+  }
+
+  /**
+   * Many running animations, on the {@link ManualScheduler#COALESCING} scheduler only: the {@link
+   * ManualScheduler#STUB} scheduler removes a canceled callback from a list, so that a storm would
+   * measure its quadratic cancellation rather than the animations.
+   */
+  @State(Scope.Thread)
+  public static class Storm {
+    @Param({"10000"})
+    int count;
+
+    final Concurrent concurrent = new Concurrent();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+      concurrent.scheduler = ManualScheduler.COALESCING;
+      concurrent.count = count;
+      concurrent.setUp();
+    }
+  }
+
+  /** Benchmarks the update of a single animation in each frame. */
+  @Benchmark
+  public double steadyState(Single state) {
+    if (!state.animation.isRunning()) {
+      state.animation.run(DURATION, state.time);
+    }
+    state.time += FRAME;
+    state.frames.frame(state.time);
+    return state.animation.progress;
+  }
+
+  /** Benchmarks a frame updating all the concurrent animations. */
+  @Benchmark
+  public void concurrentFrame(Concurrent state) {
+    state.time += FRAME;
+    state.frames.frame(state.time);
+  }
+
+  /** Benchmarks canceling all the concurrent animations, then running them again. */
+  @Benchmark
+  public void cancelStorm(Storm storm) {
+    Concurrent state = storm.concurrent;
+    for (BenchmarkAnimation animation : state.animations) {
+      animation.cancel();
+    }
+    state.runAll();
+  }
+
+  /** Benchmarks restarting all the concurrent animations while they are running. */
+  @Benchmark
+  public void restartStorm(Storm storm) {
+    Concurrent state = storm.concurrent;
+    state.time += FRAME;
+    for (BenchmarkAnimation animation : state.animations) {
+      animation.run(DURATION, state.time);
+    }
+  }
+
+  /** An animation recording its progress. */
+  static class BenchmarkAnimation extends Animation {
+    double progress;
+
+    BenchmarkAnimation(AnimationScheduler scheduler) {
+      super(scheduler);
+    }
+
+    @Override
+    protected void onUpdate(double progress) {
+      this.progress = progress;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gwtproject.animation.client.Animation;
+import org.gwtproject.animation.client.Easing;
+import org.gwtproject.animation.client.Easings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks the {@link Easing}s applied by {@link Animation#interpolate(double)}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EasingBenchmark {
+
+  /** The easing, where {@code sampledCosine} is the default easing of {@link Animation}. */
+  @Param({"linear", "cosine", "sampledCosine", "ease", "elastic"})
+  String easing;
+
+  private Easing function;
+  private double progress;
+
+  @Setup
+  public void setUp() {
+    switch (easing) {
+      case "linear":
+        function = Easings.LINEAR;
+        break;
+      case "cosine":
+        function = Easings.COSINE;
+        break;
+      case "sampledCosine":
+        function = Easings.SAMPLED_COSINE;
+        break;
+      case "ease":
+        function = Easings.EASE;
+        break;
+      case "elastic":
+        function = Easings.ELASTIC;
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown easing: " + easing);
+    }
+  }
+
+  /** Benchmarks an easing over the whole range of progress. */
+  @Benchmark
+  public double ease() {
+    progress += 0.001;
+    if (progress > 1) {
+      progress = 0;
+    }
+    return function.ease(progress);
+  }
+}
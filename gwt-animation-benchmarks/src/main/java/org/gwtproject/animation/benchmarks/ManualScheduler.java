@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.benchmarks;
+
+import org.gwtproject.animation.client.AnimationScheduler;
+import org.gwtproject.animation.client.CoalescingAnimationScheduler;
+import org.gwtproject.animation.client.testing.StubAnimationScheduler;
+
+/**
+ * An {@link AnimationScheduler} running on the JVM, with a manual clock and frames triggered by the
+ * benchmarks.
+ */
+interface ManualScheduler {
+
+  /** The name of the {@link StubAnimationScheduler} based implementation. */
+  String STUB = "stub";
+
+  /** The name of the {@link CoalescingAnimationScheduler} based implementation. */
+  String COALESCING = "coalescing";
+
+  /**
+   * Create a scheduler.
+   *
+   * @param name the name of the implementation, {@link #STUB} or {@link #COALESCING}
+   * @return the scheduler
+   */
+  static ManualScheduler create(String name) {
+    switch (name) {
+      case STUB:
+        return new Stub();
+      case COALESCING:
+        return new Coalescing();
+      default:
+        throw new IllegalArgumentException("Unknown scheduler: " + name);
+    }
+  }
+
+  /**
+   * Returns the scheduler to pass to the animations.
+   *
+   * @return the scheduler
+   */
+  AnimationScheduler scheduler();
+
+  /**
+   * Advance the clock, and execute the callbacks requested for the next frame.
+   *
+   * @param timestamp the timestamp of the frame
+   */
+  void frame(double timestamp);
+
+  /** A {@link StubAnimationScheduler} running a frame of its virtual clock. */
+  final class Stub extends StubAnimationScheduler implements ManualScheduler {
+    Stub() {
+      super(0);
+    }
+
+    @Override
+    public AnimationScheduler scheduler() {
+      return this;
+    }
+
+    @Override
+    public void frame(double timestamp) {
+      runFrames(1, timestamp - currentTimeMillis());
+    }
+  }
+
+  /** A {@link CoalescingAnimationScheduler} with a manual clock, frames and wake-ups. */
+  final class Coalescing extends CoalescingAnimationScheduler implements ManualScheduler {
+    private double now;
+    private boolean isFrameScheduled;
+    private double wakeUpTime = Double.NaN;
+
+    @Override
+    public AnimationScheduler scheduler() {
+      return this;
+    }
+
+    @Override
+    public void frame(double timestamp) {
+      now = timestamp;
+      if (wakeUpTime <= now) {
+        wakeUpTime = Double.NaN;
+        wakeUp();
+      }
+      if (isFrameScheduled) {
+        isFrameScheduled = false;
+        dispatchFrame(timestamp);
+      }
+    }
+
+    @Override
+    protected double now() {
+      return now;
+    }
+
+    @Override
+    protected void scheduleFrame() {
+      isFrameScheduled = true;
+    }
+
+    @Override
+    protected void cancelFrame() {
+      isFrameScheduled = false;
+    }
+
+    @Override
+    protected void scheduleWakeUp(double delayMillis) {
+      wakeUpTime = now + delayMillis;
+    }
+
+    @Override
+    protected void cancelWakeUp() {
+      wakeUpTime = Double.NaN;
+    }
+  }
+}
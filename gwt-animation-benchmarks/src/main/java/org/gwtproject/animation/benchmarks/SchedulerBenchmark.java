@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gwtproject.animation.client.AnimationScheduler;
+import org.gwtproject.animation.client.AnimationScheduler.AnimationCallback;
+import org.gwtproject.animation.client.AnimationScheduler.AnimationHandle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks requesting and canceling frames from an {@link AnimationScheduler}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SchedulerBenchmark {
+
+  @Param({ManualScheduler.STUB, ManualScheduler.COALESCING})
+  String scheduler;
+
+  /** The number of callbacks requested per frame by {@link #requestFrame()}. */
+  @Param({"1000"})
+  int count;
+
+  private ManualScheduler frames;
+  private AnimationHandle[] handles;
+  private double time;
+  private double executed;
+
+  private final AnimationCallback callback = timestamp -> executed = timestamp;
+
+  @Setup
+  public void setUp() {
+    frames = ManualScheduler.create(scheduler);
+    handles = new AnimationHandle[count];
+  }
+
+  /** Benchmarks requesting a frame, then canceling it. */
+  @Benchmark
+  public void requestCancel() {
+    frames.scheduler().requestAnimationFrame(callback).cancel();
+  }
+
+  /** Benchmarks requesting many frames, then canceling them in the order they were requested. */
+  @Benchmark
+  public void requestCancelAll() {
+    AnimationScheduler animationScheduler = frames.scheduler();
+    for (int i = 0; i < count; i++) {
+      handles[i] = animationScheduler.requestAnimationFrame(callback);
+    }
+    for (int i = 0; i < count; i++) {
+      handles[i].cancel();
+    }
+  }
+
+  /** Benchmarks requesting many frames, then executing them. */
+  @Benchmark
+  public double requestFrame() {
+    AnimationScheduler animationScheduler = frames.scheduler();
+    for (int i = 0; i < count; i++) {
+      animationScheduler.requestAnimationFrame(callback);
+    }
+    time += 16;
+    frames.frame(time);
+    return executed;
+  }
+}
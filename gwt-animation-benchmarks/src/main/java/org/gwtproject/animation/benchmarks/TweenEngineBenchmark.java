@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.gwtproject.animation.client.AnimationScheduler;
+import org.gwtproject.animation.client.Easings;
+import org.gwtproject.animation.client.TweenEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks a frame of the {@link TweenEngine}, to compare with {@link
+ * AnimationBenchmark#concurrentFrame} and check that it scales linearly with the number of tweens.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TweenEngineBenchmark {
+
+  /** The duration of the tweens, long enough for the benchmarks never to complete them. */
+  private static final int DURATION = 1_000_000_000;
+
+  /** The duration of a frame, in milliseconds. */
+  private static final double FRAME = 16;
+
+  @Param({ManualScheduler.STUB, ManualScheduler.COALESCING})
+  String scheduler;
+
+  @Param({"10000", "20000", "40000"})
+  int count;
+
+  ManualScheduler frames;
+  Sum sum;
+  TweenEngine engine;
+  double time;
+
+  @Setup(Level.Iteration)
+  public void setUp() {
+    frames = ManualScheduler.create(scheduler);
+    sum = new Sum();
+    engine = new BenchmarkTweenEngine(frames.scheduler(), sum);
+    time = 0;
+    for (int i = 0; i < count; i++) {
+      engine.tween(i, 0, i, DURATION, time, Easings.EASE_IN_OUT);
+    }
+  }
+
+  /** Benchmarks a frame advancing all the tweens. */
+  @Benchmark
+  public double frame() {
+    time += FRAME;
+    frames.frame(time);
+    return sum.value;
+  }
+
+  /** A listener summing the values of each frame, so that they are consumed. */
+  static class Sum implements TweenEngine.Listener {
+    double value;
+
+    @Override
+    public void onUpdate(int[] keys, double[] values, int count) {
+      double value = 0;
+      for (int i = 0; i < count; i++) {
+        value += values[i];
+      }
+      this.value = value;
+    }
+  }
+
+  /** A tween engine driven by a {@link ManualScheduler}. */
+  static class BenchmarkTweenEngine extends TweenEngine {
+    BenchmarkTweenEngine(AnimationScheduler scheduler, Listener listener) {
+      super(scheduler, listener);
+    }
+  }
+}
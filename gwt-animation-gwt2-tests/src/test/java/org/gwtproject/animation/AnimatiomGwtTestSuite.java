@@ -19,6 +19,18 @@ import junit.framework.Test;
 import junit.framework.TestSuite;
 import org.gwtproject.animation.client.AnimationGwt2SchedulerTest;
 import org.gwtproject.animation.client.AnimationGwt2Test;
+import org.gwtproject.animation.client.AnimationRegistryGwt2Test;
+import org.gwtproject.animation.client.AnimationTelemetryGwt2Test;
+import org.gwtproject.animation.client.AnimationTimelineGwt2Test;
+import org.gwtproject.animation.client.AnimationTracingGwt2Test;
+import org.gwtproject.animation.client.CoalescingAnimationSchedulerGwt2Test;
+import org.gwtproject.animation.client.EasingsGwt2Test;
+import org.gwtproject.animation.client.KeyframeAnimationGwt2Test;
+import org.gwtproject.animation.client.SpringAnimationGwt2Test;
+import org.gwtproject.animation.client.StubAnimationSchedulerGwt2Test;
+import org.gwtproject.animation.client.StyleAnimationGwt2Test;
+import org.gwtproject.animation.client.TweenEngineGwt2Test;
+import org.gwtproject.animation.client.ValueAnimationGwt2Test;
 
 /** Tests of the animation package. */
 public class AnimatiomGwtTestSuite {
@@ -28,6 +40,18 @@ public class AnimatiomGwtTestSuite {
 
     suite.addTestSuite(AnimationGwt2SchedulerTest.class);
     suite.addTestSuite(AnimationGwt2Test.class);
+    suite.addTestSuite(AnimationRegistryGwt2Test.class);
+    suite.addTestSuite(AnimationTelemetryGwt2Test.class);
+    suite.addTestSuite(AnimationTimelineGwt2Test.class);
+    suite.addTestSuite(AnimationTracingGwt2Test.class);
+    suite.addTestSuite(CoalescingAnimationSchedulerGwt2Test.class);
+    suite.addTestSuite(EasingsGwt2Test.class);
+    suite.addTestSuite(KeyframeAnimationGwt2Test.class);
+    suite.addTestSuite(SpringAnimationGwt2Test.class);
+    suite.addTestSuite(StubAnimationSchedulerGwt2Test.class);
+    suite.addTestSuite(StyleAnimationGwt2Test.class);
+    suite.addTestSuite(TweenEngineGwt2Test.class);
+    suite.addTestSuite(ValueAnimationGwt2Test.class);
 
     return suite;
   }
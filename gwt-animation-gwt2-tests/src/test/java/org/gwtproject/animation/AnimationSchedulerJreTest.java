@@ -16,8 +16,18 @@
 package org.gwtproject.animation;
 
 import com.google.gwt.junit.GWTMockUtilities;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import junit.framework.TestCase;
 import org.gwtproject.animation.client.AnimationScheduler;
+import org.gwtproject.animation.client.AnimationScheduler.AnimationCallback;
+import org.gwtproject.animation.client.AnimationScheduler.AnimationHandle;
 
 /** Tests that AnmationScheduler can be disarmed using GWTMockUtilities. */
 public class AnimationSchedulerJreTest extends TestCase {
@@ -35,4 +45,65 @@ public class AnimationSchedulerJreTest extends TestCase {
   public void testLogConfiguration() {
     assertNotNull(AnimationScheduler.get());
   }
+
+  /** Test that the JVM scheduler executes the callbacks at a fixed frame interval. */
+  public void testFrames() throws InterruptedException {
+    AnimationScheduler scheduler = AnimationScheduler.get();
+    List<Double> timestamps = new ArrayList<>();
+    CountDownLatch done = new CountDownLatch(1);
+    double start = scheduler.currentTimeMillis();
+    // The callbacks run on the ticker thread: record the failures to assert them on this one.
+    AtomicBoolean executedCanceled = new AtomicBoolean();
+    AnimationCallback counter =
+        new AnimationCallback() {
+          @Override
+          public void execute(double timestamp) {
+            timestamps.add(timestamp);
+            if (timestamps.size() < 3) {
+              scheduler.requestAnimationFrame(this);
+            } else {
+              done.countDown();
+            }
+          }
+        };
+    // The handles are only used on the thread executing the callbacks, so that canceling a request
+    // cannot race with its frame.
+    scheduler.requestAnimationFrame(
+        timestamp -> {
+          AnimationHandle canceled =
+              scheduler.requestAnimationFrame(executed -> executedCanceled.set(true));
+          scheduler.requestAnimationFrame(counter);
+          canceled.cancel();
+        });
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertFalse(executedCanceled.get());
+    assertTrue(timestamps.get(0) >= start);
+    // The frames are laid on a timeline: consecutive frames are at least one interval apart.
+    for (int i = 1; i < timestamps.size(); i++) {
+      assertTrue(timestamps.get(i) - timestamps.get(i - 1) >= 16);
+    }
+  }
+
+  /** Test that the callbacks are executed by the executor of the application. */
+  public void testExecutor() throws InterruptedException {
+    ExecutorService executor =
+        Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "application"));
+    AnimationScheduler.setJreExecutor(executor);
+    try {
+      AtomicReference<String> threadName = new AtomicReference<>();
+      CountDownLatch done = new CountDownLatch(1);
+      AnimationScheduler.get()
+          .requestAnimationFrame(
+              timestamp -> {
+                threadName.set(Thread.currentThread().getName());
+                done.countDown();
+              });
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+      assertEquals("application", threadName.get());
+    } finally {
+      AnimationScheduler.setJreExecutor(null);
+      executor.shutdown();
+    }
+  }
 }
@@ -19,6 +19,7 @@ import com.google.gwt.junit.DoNotRunWith;
 import com.google.gwt.junit.Platform;
 import com.google.gwt.junit.client.GWTTestCase;
 import org.gwtproject.animation.client.AnimationScheduler.AnimationHandle;
+import org.gwtproject.animation.client.testing.StubAnimationScheduler;
 import org.gwtproject.core.client.Duration;
 import org.gwtproject.dom.client.DivElement;
 import org.gwtproject.dom.client.Document;
@@ -69,6 +70,38 @@ public class AnimationGwt2SchedulerTest extends GWTTestCase {
     }.schedule(TIMER_DELAY);
   }
 
+  /** Test that an animation is canceled once its element is detached from the document. */
+  public void testCancelWhenDetached() {
+    StubAnimationScheduler stubScheduler = new StubAnimationScheduler(0);
+    final boolean[] canceled = new boolean[1];
+    Animation animation =
+        new Animation(stubScheduler) {
+          @Override
+          protected void onUpdate(double progress) {}
+
+          @Override
+          protected void onCancel() {
+            canceled[0] = true;
+          }
+        };
+    animation.setCancelWhenDetached(true);
+
+    // The element may be attached after the animation is run.
+    DivElement element = Document.get().createDivElement();
+    animation.run(1000, element);
+    Document.get().getBody().appendChild(element);
+    stubScheduler.runFrames(1, 16);
+    assertTrue(animation.isRunning());
+
+    int count = Animation.getDetachedCancelCount();
+    element.removeFromParent();
+    stubScheduler.runFrames(1, 16);
+    assertFalse(animation.isRunning());
+    assertTrue(canceled[0]);
+    assertEquals(count + 1, Animation.getDetachedCancelCount());
+    assertTrue(stubScheduler.getAnimationCallbacks().isEmpty());
+  }
+
   // TODO(davido): doesn't work on htmlunit-2.19 (works in 2.18)
   // Presumably because of: http://sourceforge.net/p/htmlunit/code/11004
   @DoNotRunWith(Platform.HtmlUnitBug)
@@ -98,4 +131,53 @@ public class AnimationGwt2SchedulerTest extends GWTTestCase {
         },
         null);
   }
+
+  // The same as above
+  @DoNotRunWith(Platform.HtmlUnitBug)
+  public void testRequestAnimationFrameCoalesced() {
+    delayTestFinish(TEST_TIMEOUT);
+    final double[] timestamps = new double[2];
+    scheduler.requestAnimationFrame(timestamp -> timestamps[0] = timestamp, null);
+    AnimationHandle handle =
+        scheduler.requestAnimationFrame(
+            timestamp -> fail("The animation frame was cancelled and should not execute."), null);
+    scheduler.requestAnimationFrame(
+        timestamp -> {
+          timestamps[1] = timestamp;
+          // All the callbacks of a frame share the same timestamp.
+          assertEquals(timestamps[0], timestamps[1]);
+          finishTest();
+        },
+        null);
+    // Cancel the animation frame in the middle of the queue.
+    handle.cancel();
+  }
+
+  /** Test the scheduler used where {@code requestAnimationFrame} is missing. */
+  public void testTimerScheduler() {
+    delayTestFinish(TEST_TIMEOUT);
+    AnimationScheduler timerScheduler = new AnimationSchedulerImplTimer(20);
+    final double startTime = Duration.currentTimeMillis();
+    final double[] timestamps = new double[3];
+    AnimationHandle handle =
+        timerScheduler.requestAnimationFrame(
+            timestamp -> fail("The animation frame was cancelled and should not execute."), null);
+    timerScheduler.requestAnimationFrame(
+        new AnimationScheduler.AnimationCallback() {
+          private int frame = 0;
+
+          @Override
+          public void execute(double timestamp) {
+            assertTrue(timestamp >= (frame == 0 ? startTime : timestamps[frame - 1]));
+            timestamps[frame++] = timestamp;
+            if (frame < timestamps.length) {
+              timerScheduler.requestAnimationFrame(this, null);
+            } else {
+              finishTest();
+            }
+          }
+        },
+        null);
+    handle.cancel();
+  }
 }
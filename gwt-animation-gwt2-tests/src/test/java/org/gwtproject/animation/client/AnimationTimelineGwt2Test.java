@@ -0,0 +1,195 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import com.google.gwt.junit.client.GWTTestCase;
+import java.util.List;
+import org.gwtproject.animation.client.AnimationScheduler.AnimationCallback;
+import org.gwtproject.animation.client.testing.StubAnimationScheduler;
+import org.gwtproject.core.client.Duration;
+
+/**
+ * Tests the {@link AnimationTimeline} class.
+ *
+ * <p>This class uses the {@link StubAnimationScheduler} to manually trigger callbacks.
+ */
+public class AnimationTimelineGwt2Test extends GWTTestCase {
+
+  private static final int DURATION = 1000;
+
+  private List<AnimationCallback> callbacks;
+  private double curTime;
+  private StubAnimationScheduler scheduler;
+
+  @Override
+  public String getModuleName() {
+    return "org.gwtproject.animation.AnimationTest";
+  }
+
+  @Override
+  protected void gwtSetUp() throws Exception {
+    scheduler = new StubAnimationScheduler();
+    callbacks = scheduler.getAnimationCallbacks();
+    curTime = Duration.currentTimeMillis();
+  }
+
+  @Override
+  protected void gwtTearDown() throws Exception {
+    scheduler = null;
+    callbacks = null;
+  }
+
+  /** Test that sequential children hand over in the same frame. */
+  public void testSequence() {
+    TestAnimation first = new TestAnimation();
+    TestAnimation second = new TestAnimation();
+    AnimationTimeline timeline =
+        new AnimationTimeline(scheduler).add(first, DURATION).add(second, DURATION);
+    assertEquals(2 * DURATION, timeline.getDuration());
+
+    timeline.run(timeline.getDuration(), curTime);
+    assertTrue(timeline.isRunning());
+    assertTrue(first.started);
+    assertFalse(second.started);
+    assertEquals(1, callbacks.size());
+
+    // The first child completes and the second one starts in the same frame.
+    executeLastCallbackAt(curTime + DURATION);
+    assertTrue(first.completed);
+    assertTrue(second.started);
+    assertFalse(second.completed);
+    assertEquals(1, callbacks.size());
+
+    executeLastCallbackAt(curTime + 2 * DURATION);
+    assertTrue(second.completed);
+    assertFalse(timeline.isRunning());
+    assertEquals(0, callbacks.size());
+  }
+
+  /** Test children with staggered offsets. */
+  public void testStagger() {
+    TestAnimation first = new TestAnimation();
+    TestAnimation second = new TestAnimation();
+    AnimationTimeline timeline =
+        new AnimationTimeline(scheduler).addStaggered(0, DURATION / 2, DURATION, first, second);
+    assertEquals(DURATION + DURATION / 2, timeline.getDuration());
+
+    timeline.run(timeline.getDuration(), curTime);
+    assertTrue(first.started);
+    assertFalse(second.started);
+
+    executeLastCallbackAt(curTime + DURATION / 2);
+    assertTrue(first.updated);
+    assertTrue(second.started);
+    assertFalse(first.completed);
+  }
+
+  /** Test canceling a timeline cancels its running children. */
+  public void testCancel() {
+    TestAnimation first = new TestAnimation();
+    TestAnimation second = new TestAnimation();
+    AnimationTimeline timeline = new AnimationTimeline(scheduler).add(first, DURATION);
+    timeline.addAt(second, DURATION / 2, DURATION);
+
+    timeline.run(timeline.getDuration(), curTime);
+    timeline.cancel();
+    assertFalse(timeline.isRunning());
+    assertTrue(first.canceled);
+    assertTrue(second.canceled);
+    assertFalse(second.started);
+    assertEquals(0, callbacks.size());
+  }
+
+  /** Test that canceling a started timeline completes it without updating its children. */
+  public void testCancelCompletesTimeline() {
+    TestAnimation first = new TestAnimation();
+    boolean[] completed = {false};
+    AnimationTimeline timeline =
+        new AnimationTimeline(scheduler) {
+          @Override
+          protected void onComplete() {
+            super.onComplete();
+            completed[0] = true;
+          }
+        }.add(first, DURATION);
+
+    timeline.run(timeline.getDuration(), curTime);
+    first.updated = false;
+    timeline.cancel();
+    assertTrue(completed[0]);
+    assertTrue(first.canceled);
+    assertFalse(first.updated);
+    assertFalse(first.completed);
+  }
+
+  /** Test that the easing of the timeline warps the time of its children. */
+  public void testEasing() {
+    TestAnimation first = new TestAnimation();
+    first.setEasing(Easings.LINEAR);
+    AnimationTimeline timeline = new AnimationTimeline(scheduler).add(first, DURATION);
+    assertSame(Easings.LINEAR, timeline.getEasing());
+    timeline.setEasing(progress -> progress * progress);
+
+    timeline.run(timeline.getDuration(), curTime);
+    executeLastCallbackAt(curTime + DURATION / 2);
+    assertEquals(0.25, first.progress, 1e-9);
+  }
+
+  /**
+   * Execute the last callback requested from the scheduler at the specified time.
+   *
+   * @param timestamp the time to pass to the callback
+   */
+  private void executeLastCallbackAt(double timestamp) {
+    assertTrue(callbacks.size() > 0);
+    AnimationCallback callback = callbacks.remove(callbacks.size() - 1);
+    callback.execute(timestamp);
+  }
+
+  /** A child {@link Animation} used for testing. */
+  private class TestAnimation extends Animation {
+    boolean canceled = false;
+    boolean completed = false;
+    boolean started = false;
+    boolean updated = false;
+    double progress = 0;
+
+    TestAnimation() {
+      super(scheduler);
+    }
+
+    @Override
+    protected void onCancel() {
+      canceled = true;
+    }
+
+    @Override
+    protected void onComplete() {
+      completed = true;
+    }
+
+    @Override
+    protected void onStart() {
+      started = true;
+    }
+
+    @Override
+    protected void onUpdate(double progress) {
+      updated = true;
+      this.progress = progress;
+    }
+  }
+}
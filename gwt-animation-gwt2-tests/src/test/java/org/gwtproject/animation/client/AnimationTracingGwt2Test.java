@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import com.google.gwt.junit.client.GWTTestCase;
+import org.gwtproject.animation.client.testing.StubAnimationScheduler;
+
+/** Tests the {@link AnimationTracing} class. */
+public class AnimationTracingGwt2Test extends GWTTestCase {
+
+  private StubAnimationScheduler scheduler;
+
+  @Override
+  public String getModuleName() {
+    return "org.gwtproject.animation.AnimationTest";
+  }
+
+  @Override
+  protected void gwtSetUp() throws Exception {
+    scheduler = new StubAnimationScheduler(0);
+    AnimationTracing.clear();
+    AnimationTracing.setEnabled(true);
+  }
+
+  @Override
+  protected void gwtTearDown() throws Exception {
+    AnimationTracing.setEnabled(false);
+    AnimationTracing.setCapacity(AnimationTracing.DEFAULT_CAPACITY);
+    scheduler = null;
+  }
+
+  /** Test recording the lifecycle of an animation. */
+  public void testLifecycle() {
+    TestAnimation animation = new TestAnimation();
+    animation.run(100);
+    scheduler.runFrames(2, 16);
+    animation.cancel();
+    assertEquals(5, AnimationTracing.getEventCount());
+
+    String json = AnimationTracing.export();
+    assertTrue(
+        json,
+        json.startsWith(
+            "{\"traceEvents\":[{\"name\":\"run\",\"cat\":\"animation\",\"ph\":\"i\",\"s\":\"t\","
+                + "\"ts\":0,\"pid\":1,\"tid\":1,\"args\":{\"class\":\""));
+    assertTrue(json, json.contains("{\"name\":\"onStart\",\"cat\":\"animation\",\"ph\":\"i\""));
+    assertTrue(
+        json,
+        json.contains(
+            "{\"name\":\"onUpdate\",\"cat\":\"animation\",\"ph\":\"X\",\"dur\":0,\"ts\":32000,"));
+    assertTrue(json, json.contains("{\"name\":\"cancel\",\"cat\":\"animation\",\"ph\":\"i\""));
+    assertTrue(json, json.endsWith("}}],\"displayTimeUnit\":\"ms\"}"));
+  }
+
+  /** Test that the oldest events are overwritten once the capacity is reached. */
+  public void testCapacity() {
+    AnimationTracing.setCapacity(2);
+    TestAnimation animation = new TestAnimation();
+    animation.run(100);
+    scheduler.runUntilIdle();
+    assertEquals(2, AnimationTracing.getEventCount());
+    String json = AnimationTracing.export();
+    assertFalse(json, json.contains("\"run\""));
+    assertTrue(json, json.contains("\"onComplete\""));
+
+    AnimationTracing.clear();
+    assertEquals(0, AnimationTracing.getEventCount());
+    assertEquals("{\"traceEvents\":[],\"displayTimeUnit\":\"ms\"}", AnimationTracing.export());
+  }
+
+  /** Test recording the frames of a scheduler. */
+  public void testFrame() {
+    TestScheduler frameScheduler = new TestScheduler();
+    frameScheduler.requestAnimationFrame(timestamp -> frameScheduler.now += 5, null);
+    frameScheduler.dispatch(1000);
+    assertEquals(1, AnimationTracing.getEventCount());
+    String json = AnimationTracing.export();
+    assertTrue(
+        json,
+        json.contains(
+            "{\"name\":\"frame\",\"cat\":\"scheduler\",\"ph\":\"X\",\"dur\":5000,\"ts\":0,"));
+  }
+
+  /** Test that the times are relative to the first event, in whole microseconds. */
+  public void testEpochTimes() {
+    StubAnimationScheduler epochScheduler = new StubAnimationScheduler(1.7e12);
+    Animation animation =
+        new Animation(epochScheduler) {
+          @Override
+          protected void onUpdate(double progress) {}
+        };
+    animation.run(100);
+    epochScheduler.runFrames(1, 16.25);
+    String json = AnimationTracing.export();
+    assertTrue(json, json.contains("\"ts\":0,"));
+    assertTrue(json, json.contains("\"ts\":16250,"));
+  }
+
+  /** Test that nothing is recorded while disabled. */
+  public void testDisabled() {
+    AnimationTracing.setEnabled(false);
+    new TestAnimation().run(100);
+    scheduler.runUntilIdle();
+    assertEquals(0, AnimationTracing.getEventCount());
+  }
+
+  /** An {@link Animation} doing nothing. */
+  private class TestAnimation extends Animation {
+    TestAnimation() {
+      super(scheduler);
+    }
+
+    @Override
+    protected void onUpdate(double progress) {}
+  }
+
+  /** A {@link CoalescingAnimationScheduler} whose frames are dispatched manually. */
+  private static class TestScheduler extends CoalescingAnimationScheduler {
+    double now;
+
+    void dispatch(double timestamp) {
+      now = timestamp;
+      dispatchFrame(timestamp);
+    }
+
+    @Override
+    protected double now() {
+      return now;
+    }
+
+    @Override
+    protected void scheduleFrame() {}
+
+    @Override
+    protected void cancelFrame() {}
+
+    @Override
+    protected void scheduleWakeUp(double delayMillis) {}
+
+    @Override
+    protected void cancelWakeUp() {}
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import com.google.gwt.junit.client.GWTTestCase;
+import java.util.ArrayList;
+import java.util.List;
+import org.gwtproject.animation.client.testing.StubAnimationScheduler;
+
+/** Tests the {@link SpringAnimation} class. */
+public class SpringAnimationGwt2Test extends GWTTestCase {
+
+  private StubAnimationScheduler scheduler;
+
+  @Override
+  public String getModuleName() {
+    return "org.gwtproject.animation.AnimationTest";
+  }
+
+  @Override
+  protected void gwtSetUp() throws Exception {
+    scheduler = new StubAnimationScheduler(0);
+  }
+
+  @Override
+  protected void gwtTearDown() throws Exception {
+    scheduler = null;
+  }
+
+  /** Test that the spring stops requesting frames once at rest. */
+  public void testRest() {
+    TestAnimation animation = new TestAnimation();
+    animation.run(0, 100);
+    assertEquals("start 0.0", animation.reported.get(0));
+
+    int frames = scheduler.runUntilIdle();
+    assertFalse(animation.isRunning());
+    assertEquals("complete 100.0", animation.reported.get(animation.reported.size() - 1));
+    assertEquals(frames + 1, animation.reported.size());
+    // Nearly critically damped, the spring settles within 0.01 of the target in about 0.9 s.
+    assertTrue("frames: " + frames, frames > 50 && frames < 65);
+    assertEquals(0, animation.getVelocity(), 0);
+
+    // The values approach the target without overshooting it.
+    double previous = 0;
+    for (double value : animation.values) {
+      assertTrue(value >= previous && value <= 100);
+      previous = value;
+    }
+  }
+
+  /** Test that a weakly damped spring oscillates around its target. */
+  public void testOscillation() {
+    TestAnimation animation = new TestAnimation();
+    animation.setDamping(5);
+    animation.run(0, 100);
+    scheduler.runUntilIdle();
+    double max = 0;
+    for (double value : animation.values) {
+      max = Math.max(max, value);
+    }
+    assertTrue("max: " + max, max > 150);
+    assertEquals(100, animation.getValue(), 0);
+  }
+
+  /** Test that the motion does not depend on the frame rate. */
+  public void testFrameRateIndependence() {
+    StubAnimationScheduler fastScheduler = new StubAnimationScheduler(0);
+    TestAnimation slow = new TestAnimation();
+    TestAnimation fast = new TestAnimation(fastScheduler);
+    slow.run(0, 100, 500, null);
+    fast.run(0, 100, 500, null);
+
+    scheduler.runFrames(5, 32);
+    fastScheduler.runFrames(20, 8);
+    assertEquals(slow.getValue(), fast.getValue(), 1e-9);
+    assertEquals(slow.getVelocity(), fast.getVelocity(), 1e-9);
+  }
+
+  /** Test that a frame timestamped before the start of the run does not rewind the spring. */
+  public void testStaleFrame() {
+    StubAnimationScheduler controlScheduler = new StubAnimationScheduler(0);
+    TestAnimation stale = new TestAnimation();
+    TestAnimation control = new TestAnimation(controlScheduler);
+    stale.run(0, 100);
+    control.run(0, 100);
+
+    scheduler.getAnimationCallbacks().remove(0).execute(-5);
+    assertEquals(0, stale.getValue(), 0);
+    scheduler.runFrames(1, 16);
+    controlScheduler.runFrames(1, 16);
+    assertEquals(control.getValue(), stale.getValue(), 1e-9);
+    assertEquals(control.getVelocity(), stale.getVelocity(), 1e-9);
+  }
+
+  /** Test canceling the spring. */
+  public void testCancel() {
+    TestAnimation animation = new TestAnimation();
+    animation.run(0, 100);
+    scheduler.runFrames(2, 16);
+    animation.cancel();
+    assertFalse(animation.isRunning());
+    assertEquals("cancel", animation.reported.get(animation.reported.size() - 1));
+    assertTrue(animation.getValue() > 0 && animation.getValue() < 100);
+    assertEquals(0, scheduler.runUntilIdle());
+  }
+
+  /** Test the validation of the parameters. */
+  public void testParameters() {
+    TestAnimation animation = new TestAnimation();
+    try {
+      animation.setStiffness(0);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // expected.
+    }
+    try {
+      animation.setMass(-1);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // expected.
+    }
+    try {
+      animation.setRestThresholds(0.1, 0);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // expected.
+    }
+    animation.setDamping(0);
+    assertEquals(0, animation.getDamping(), 0);
+  }
+
+  /** A {@link SpringAnimation} recording its values. */
+  private class TestAnimation extends SpringAnimation {
+    final List<String> reported = new ArrayList<>();
+    final List<Double> values = new ArrayList<>();
+
+    TestAnimation() {
+      this(scheduler);
+    }
+
+    TestAnimation(AnimationScheduler scheduler) {
+      super(scheduler);
+    }
+
+    @Override
+    protected void onStart() {
+      reported.add("start " + getValue());
+    }
+
+    @Override
+    protected void onUpdate(double value) {
+      reported.add("update");
+      values.add(value);
+    }
+
+    @Override
+    protected void onComplete() {
+      reported.add("complete " + getValue());
+    }
+
+    @Override
+    protected void onCancel() {
+      reported.add("cancel");
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import com.google.gwt.junit.client.GWTTestCase;
+import java.util.ArrayList;
+import java.util.List;
+import org.gwtproject.animation.client.testing.StubAnimationScheduler;
+
+/** Tests the {@link StyleAnimation} class, recording the style writes instead of applying them. */
+public class StyleAnimationGwt2Test extends GWTTestCase {
+
+  private StubAnimationScheduler scheduler;
+  private TestAnimation animation;
+
+  @Override
+  public String getModuleName() {
+    return "org.gwtproject.animation.AnimationTest";
+  }
+
+  @Override
+  protected void gwtSetUp() throws Exception {
+    scheduler = new StubAnimationScheduler(0);
+    animation = new TestAnimation();
+    animation.setEasing(Easings.LINEAR);
+  }
+
+  @Override
+  protected void gwtTearDown() throws Exception {
+    scheduler = null;
+    animation = null;
+  }
+
+  /** Test formatting the numbers. */
+  public void testFormat() {
+    assertEquals("0", CssNumbers.format(0.0004));
+    assertEquals("0", CssNumbers.format(-0.0004));
+    assertEquals("0.001", CssNumbers.format(0.001));
+    assertEquals("0.05", CssNumbers.format(0.05));
+    assertEquals("-0.25", CssNumbers.format(-0.25));
+    assertEquals("1.667", CssNumbers.format(5.0 / 3));
+    assertEquals("12345678.5", CssNumbers.format(12345678.5));
+    assertEquals("42", CssNumbers.format(42));
+    assertEquals("1.2", CssNumbers.format(CssNumbers.quantize(1.2, 2), 2));
+  }
+
+  /** Test writing the properties and merging the transform. */
+  public void testWrites() {
+    animation.left(0, 100).opacity(0, 1).translate(0, 0, 10, 20).scale(1, 2).rotate(0, 90);
+    animation.run(100);
+    scheduler.runFrames(1, 16);
+    assertEquals(
+        "[left=0px, opacity=0, transform=translate(0px, 0px) scale(1) rotate(0deg),"
+            + " left=16px, opacity=0.16, transform=translate(1.6px, 3.2px) scale(1.16)"
+            + " rotate(14.4deg)]",
+        animation.writes.toString());
+
+    // Canceling the animation writes the end values.
+    animation.writes.clear();
+    animation.cancel();
+    assertEquals(
+        "[left=100px, opacity=1, transform=translate(10px, 20px) scale(2) rotate(90deg)]",
+        animation.writes.toString());
+  }
+
+  /** Test that the writes of unchanged rounded values are skipped. */
+  public void testSkipUnchanged() {
+    animation.property("margin-left", 0, 0.1, "px").scale(1, 1);
+    animation.run(1000);
+    scheduler.runFrames(10, 16);
+    assertEquals(
+        "[margin-left=0px, transform=scale(1), margin-left=0.01px, margin-left=0.02px]",
+        animation.writes.toString());
+
+    // A new run writes every property again.
+    animation.writes.clear();
+    animation.property("margin-left", 0, 0, "px");
+    animation.run(1000);
+    animation.writes.clear();
+    animation.run(1000);
+    assertEquals("[margin-left=0px, transform=scale(1)]", animation.writes.toString());
+  }
+
+  /** A {@link StyleAnimation} recording its writes. */
+  private class TestAnimation extends StyleAnimation {
+    final List<String> writes = new ArrayList<>();
+
+    TestAnimation() {
+      super(scheduler, null);
+    }
+
+    @Override
+    void setStyle(String name, String value) {
+      writes.add(name + "=" + value);
+    }
+  }
+}
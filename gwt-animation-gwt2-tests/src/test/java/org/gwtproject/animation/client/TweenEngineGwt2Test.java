@@ -0,0 +1,250 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import com.google.gwt.junit.client.GWTTestCase;
+import java.util.ArrayList;
+import java.util.List;
+import org.gwtproject.animation.client.AnimationScheduler.AnimationCallback;
+import org.gwtproject.animation.client.AnimationScheduler.AnimationHandle;
+import org.gwtproject.animation.client.testing.StubAnimationScheduler;
+import org.gwtproject.dom.client.Element;
+
+/** Tests the {@link TweenEngine} class. */
+public class TweenEngineGwt2Test extends GWTTestCase {
+
+  private StubAnimationScheduler scheduler;
+  private List<String> reported;
+  private TweenEngine engine;
+
+  @Override
+  public String getModuleName() {
+    return "org.gwtproject.animation.AnimationTest";
+  }
+
+  @Override
+  protected void gwtSetUp() throws Exception {
+    scheduler = new StubAnimationScheduler(0);
+    reported = new ArrayList<>();
+    engine =
+        new TweenEngine(
+            scheduler,
+            new TweenEngine.Listener() {
+              @Override
+              public void onUpdate(int[] keys, double[] values, int count) {
+                StringBuilder builder = new StringBuilder();
+                for (int i = 0; i < count; i++) {
+                  builder.append(i == 0 ? "" : " ").append(keys[i]).append('=').append(values[i]);
+                }
+                reported.add(builder.toString());
+              }
+
+              @Override
+              public void onComplete(int[] keys, int count) {
+                for (int i = 0; i < count; i++) {
+                  reported.add("complete " + keys[i]);
+                }
+              }
+            });
+  }
+
+  @Override
+  protected void gwtTearDown() throws Exception {
+    scheduler = null;
+    reported = null;
+    engine = null;
+  }
+
+  /** Test advancing the tweens and compacting the finished ones. */
+  public void testTweens() {
+    engine.tween(1, 0, 100, 100, 0, Easings.LINEAR);
+    engine.tween(2, 10, 20, 50, 0, Easings.LINEAR);
+    engine.tween(3, 0, 1, 100, 50, Easings.LINEAR);
+    assertEquals(3, engine.getCount());
+    assertTrue(reported.isEmpty());
+
+    scheduler.runFrames(2, 25);
+    scheduler.runFrames(1, 50);
+    assertEquals(
+        "[1=25.0 2=15.0 3=0.0, 1=50.0 2=20.0 3=0.0, complete 2, 1=100.0 3=0.5, complete 1]",
+        reported.toString());
+    assertEquals(1, engine.getCount());
+
+    reported.clear();
+    scheduler.runFrames(1, 50);
+    assertEquals("[3=1.0, complete 3]", reported.toString());
+    assertFalse(engine.isRunning());
+    assertEquals(0, scheduler.runUntilIdle());
+  }
+
+  /** Test that a tween of zero duration jumps to its end value. */
+  public void testZeroDuration() {
+    engine.tween(1, 0, 10, 0, 0, Easings.LINEAR);
+    engine.tween(2, 0, 10, 0, 100, Easings.LINEAR);
+    scheduler.runFrames(1, 16);
+    scheduler.runUntilIdle();
+    assertEquals(
+        "[1=10.0 2=0.0, complete 1, 2=0.0, 2=0.0, 2=0.0, 2=0.0, 2=0.0, 2=10.0, complete 2]",
+        reported.toString());
+  }
+
+  /** Test that tweens waiting for their start time request a frame at that time. */
+  public void testFutureStart() {
+    List<Double> requestedTimes = new ArrayList<>();
+    StubAnimationScheduler waitingScheduler =
+        new StubAnimationScheduler(0) {
+          @Override
+          public AnimationHandle requestAnimationFrameAt(
+              AnimationCallback callback, Element element, double time) {
+            requestedTimes.add(time);
+            return super.requestAnimationFrameAt(callback, element, time);
+          }
+        };
+    TweenEngine waiting = new TweenEngine(waitingScheduler, (keys, values, count) -> {});
+    waiting.tween(1, 0, 1, 100, 200, Easings.LINEAR);
+    waiting.tween(2, 0, 1, 100, 50, Easings.LINEAR);
+    assertEquals("[200.0, 50.0]", requestedTimes.toString());
+    assertEquals(1, waitingScheduler.getAnimationCallbacks().size());
+
+    // Once the first tween has started, frames are requested at each vsync.
+    waitingScheduler.runFrames(1, 50);
+    waitingScheduler.runFrames(1, 60);
+    assertEquals("[200.0, 50.0]", requestedTimes.toString());
+    // The second tween completes, and the first is waiting again.
+    waitingScheduler.runFrames(1, 50);
+    assertEquals("[200.0, 50.0, 200.0]", requestedTimes.toString());
+    waitingScheduler.runUntilIdle();
+    assertFalse(waiting.isRunning());
+  }
+
+  /** Test that a delayed tween started on completion does not delay the running tweens. */
+  public void testDelayedTweenFromOnComplete() {
+    List<String> requests = new ArrayList<>();
+    StubAnimationScheduler recordingScheduler =
+        new StubAnimationScheduler(0) {
+          @Override
+          public StubAnimationHandle requestAnimationFrame(
+              AnimationCallback callback, Element element) {
+            requests.add("frame");
+            return super.requestAnimationFrame(callback, element);
+          }
+
+          @Override
+          public AnimationHandle requestAnimationFrameAt(
+              AnimationCallback callback, Element element, double time) {
+            requests.add("at " + time);
+            return super.requestAnimationFrame(callback, element);
+          }
+        };
+    TweenEngine[] chained = new TweenEngine[1];
+    chained[0] =
+        new TweenEngine(
+            recordingScheduler,
+            new TweenEngine.Listener() {
+              @Override
+              public void onUpdate(int[] keys, double[] values, int count) {}
+
+              @Override
+              public void onComplete(int[] keys, int count) {
+                chained[0].tween(3, 0, 1, 100, 2000, Easings.LINEAR);
+              }
+            });
+    chained[0].tween(1, 0, 1, 1000, 0, Easings.LINEAR);
+    chained[0].tween(2, 0, 1, 16, 0, Easings.LINEAR);
+    requests.clear();
+
+    recordingScheduler.runFrames(1, 16);
+    assertEquals(2, chained[0].getCount());
+    // The first tween is still running and needs the next frame.
+    assertEquals("[frame]", requests.toString());
+  }
+
+  /** Test canceling the tweens. */
+  public void testCancel() {
+    engine.tween(1, 0, 100, 100, 0, Easings.LINEAR);
+    engine.tween(2, 0, 100, 100, 0, Easings.LINEAR);
+    engine.tween(3, 0, 100, 100, 0, Easings.LINEAR);
+    assertTrue(engine.cancel(2));
+    assertFalse(engine.cancel(2));
+    scheduler.runFrames(1, 50);
+    assertEquals("[1=50.0 3=50.0]", reported.toString());
+
+    engine.cancelAll();
+    assertFalse(engine.isRunning());
+    assertEquals(0, scheduler.runUntilIdle());
+  }
+
+  /** Test canceling many tweens by key, including keys shared by several tweens. */
+  public void testCancelByKey() {
+    int[] updated = new int[1];
+    TweenEngine keyed = new TweenEngine(scheduler, (keys, values, count) -> updated[0] = count);
+    for (int i = 0; i < 1000; i++) {
+      // Every tenth tween completes after the first frame.
+      keyed.tween(i, 0, 1, i % 10 == 0 ? 10 : 1000, 0, Easings.LINEAR);
+    }
+    keyed.tween(5, 0, 1, 1000, 0, Easings.LINEAR);
+    keyed.tween(-70000, 0, 1, 1000, 0, Easings.LINEAR);
+    assertEquals(1002, keyed.getCount());
+
+    scheduler.runFrames(1, 16);
+    assertEquals(902, keyed.getCount());
+    assertFalse(keyed.cancel(10));
+    assertTrue(keyed.cancel(5));
+    assertTrue(keyed.cancel(5));
+    assertFalse(keyed.cancel(5));
+    assertTrue(keyed.cancel(-70000));
+    for (int i = 1; i < 1000; i += 2) {
+      if (i != 5) {
+        assertTrue(keyed.cancel(i));
+      }
+    }
+    assertEquals(400, keyed.getCount());
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i % 2 == 0 && i % 10 != 0, keyed.cancel(i));
+    }
+    assertFalse(keyed.isRunning());
+    assertEquals(0, scheduler.runUntilIdle());
+  }
+
+  /** Test starting tweens from the listener, and growing the arrays. */
+  public void testTweenFromListener() {
+    List<Integer> counts = new ArrayList<>();
+    TweenEngine[] chained = new TweenEngine[1];
+    chained[0] =
+        new TweenEngine(
+            scheduler,
+            new TweenEngine.Listener() {
+              @Override
+              public void onUpdate(int[] keys, double[] values, int count) {
+                counts.add(count);
+              }
+
+              @Override
+              public void onComplete(int[] keys, int count) {
+                for (int i = 0; i < count; i++) {
+                  if (keys[i] < 40) {
+                    chained[0].tween(keys[i] + 20, 0, 1, 16, 16, Easings.LINEAR);
+                  }
+                }
+              }
+            });
+    for (int i = 0; i < 20; i++) {
+      chained[0].tween(i, 0, 1, 16, 0, Easings.LINEAR);
+    }
+    scheduler.runUntilIdle();
+    assertEquals("[20, 20, 20]", counts.toString());
+  }
+}
@@ -56,6 +56,7 @@ public class AnimationJ2clTest {
 
   @After
   public void teardown() {
+    Animation.setGlobalMaxFrameRate(0);
     scheduler = null;
     callbacks = null;
   }
@@ -325,6 +326,94 @@ public class AnimationJ2clTest {
     anim.assertCancelled(true);
   }
 
+  /** Test that the deferred runs requested before a frame are coalesced into a single start. */
+  @Test
+  public void testDeferredStart() {
+    final TestAnimation anim = new TestAnimation();
+    assertFalse(anim.isDeferredStart());
+    anim.setDeferredStart(true);
+    anim.run(DELAY_MULTIPLIER, curTime);
+    anim.run(2 * DELAY_MULTIPLIER, curTime);
+    anim.run(3 * DELAY_MULTIPLIER, curTime);
+    assertTrue(anim.isRunning());
+    anim.assertStarted(false);
+    assertEquals(1, callbacks.size());
+
+    // The last run starts in the next frame.
+    executeLastCallbackAt(curTime);
+    anim.assertStarted(true);
+    anim.assertCancelled(false);
+    anim.reset();
+    executeLastCallbackAt(curTime + 2 * DELAY_MULTIPLIER);
+    anim.assertUpdated(true);
+    anim.assertCompleted(false);
+    anim.reset();
+
+    // The running animation is canceled once, in the frame starting the next run.
+    anim.run(DELAY_MULTIPLIER, curTime + 2 * DELAY_MULTIPLIER);
+    anim.run(DELAY_MULTIPLIER, curTime + 2 * DELAY_MULTIPLIER);
+    anim.assertCancelled(false);
+    assertEquals(2, callbacks.size());
+    executeLastCallbackAt(curTime + 2 * DELAY_MULTIPLIER);
+    anim.assertCancelled(true);
+    anim.assertStarted(true);
+    assertEquals(1, callbacks.size());
+    anim.reset();
+
+    // Canceling drops the deferred run.
+    anim.run(DELAY_MULTIPLIER, curTime + 2 * DELAY_MULTIPLIER);
+    anim.cancel();
+    assertFalse(anim.isRunning());
+    assertTrue(callbacks.isEmpty());
+    anim.assertStarted(false);
+  }
+
+  /** Test that the updates are limited to the global maximum rate. */
+  @Test
+  public void testGlobalMaxFrameRate() {
+    Animation.setGlobalMaxFrameRate(10);
+    final TestAnimation anim = new TestAnimation();
+    anim.setMaxFrameRate(20);
+    anim.run(1000, curTime);
+    anim.reset();
+
+    // The lowest rate wins: an update every 100 ms.
+    executeLastCallbackAt(curTime + 50);
+    anim.assertUpdated(false);
+    executeLastCallbackAt(curTime + 80);
+    anim.assertUpdated(true);
+  }
+
+  /** Test that the updates are limited to the maximum rate, without drifting. */
+  @Test
+  public void testMaxFrameRate() {
+    final TestAnimation anim = new TestAnimation();
+    assertEquals(0, anim.getMaxFrameRate(), 0);
+    anim.setMaxFrameRate(20);
+    anim.run(1000, curTime);
+    anim.assertStarted(true);
+    anim.reset();
+
+    // An update every 50 ms, accepting frames up to 12.5 ms early.
+    executeLastCallbackAt(curTime + 10);
+    anim.assertUpdated(false);
+    executeLastCallbackAt(curTime + 30);
+    anim.assertUpdated(false);
+    executeLastCallbackAt(curTime + 40);
+    anim.assertUpdated(true);
+    anim.reset();
+    executeLastCallbackAt(curTime + 60);
+    anim.assertUpdated(false);
+    executeLastCallbackAt(curTime + 90);
+    anim.assertUpdated(true);
+    anim.reset();
+
+    // The animation completes on time.
+    executeLastCallbackAt(curTime + 1000);
+    anim.assertCompleted(true);
+    assertFalse(anim.isRunning());
+  }
+
   /** Test that restarting an {@link Animation} within onComplete does not break. See issue 5639. */
   @Test
   public void testRunDuringOnComplete() {
@@ -471,6 +560,36 @@ public class AnimationJ2clTest {
     assertFalse(anim.isRunning());
   }
 
+  /** Test that the updates are skipped while the element is offscreen. */
+  @Test
+  public void testSkipOffscreenUpdates() {
+    final TestAnimation anim = new TestAnimation();
+    assertFalse(anim.isSkipOffscreenUpdates());
+    anim.setSkipOffscreenUpdates(true);
+    anim.run(3 * DELAY_MULTIPLIER, curTime);
+    anim.assertStarted(true);
+    anim.reset();
+
+    // The animation advances without updating.
+    anim.setOffscreen(true);
+    executeLastCallbackAt(curTime + DELAY_MULTIPLIER);
+    anim.assertUpdated(false);
+    assertTrue(anim.isRunning());
+    assertEquals(1, callbacks.size());
+
+    // The animation is updated with its current progress once visible again.
+    anim.setOffscreen(false);
+    executeLastCallbackAt(curTime + 2 * DELAY_MULTIPLIER);
+    anim.assertUpdated(true);
+    anim.reset();
+
+    // The animation completes even when offscreen.
+    anim.setOffscreen(true);
+    executeLastCallbackAt(curTime + 3 * DELAY_MULTIPLIER);
+    anim.assertCompleted(true);
+    assertFalse(anim.isRunning());
+  }
+
   /** A default implementation of {@link Animation} used for testing. */
   private class DefaultAnimation extends Animation {
 
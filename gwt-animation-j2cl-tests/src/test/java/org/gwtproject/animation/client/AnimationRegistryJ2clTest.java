@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import static junit.framework.TestCase.*;
+
+import com.google.j2cl.junit.apt.J2clTestInput;
+import java.util.List;
+import org.gwtproject.animation.client.testing.StubAnimationScheduler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests the {@link AnimationRegistry} class. */
+@J2clTestInput(AnimationRegistryJ2clTest.class)
+public class AnimationRegistryJ2clTest {
+
+  private StubAnimationScheduler scheduler;
+
+  @Before
+  public void setUp() {
+    scheduler = new StubAnimationScheduler(0);
+    AnimationRegistry.setEnabled(true);
+    AnimationRegistry.resetHighWaterMark();
+  }
+
+  @After
+  public void teardown() {
+    AnimationRegistry.setEnabled(false);
+    scheduler = null;
+  }
+
+  /** Test registering the running animations. */
+  @Test
+  public void testRegistry() {
+    TestAnimation first = new TestAnimation();
+    TestAnimation second = new TestAnimation();
+    TestAnimation third = new TestAnimation();
+    first.run(100);
+    second.run(200);
+    third.run(300);
+    assertEquals(3, AnimationRegistry.getActiveCount());
+    assertEquals(3, AnimationRegistry.getHighWaterMark());
+
+    // Running an animation again does not register it twice.
+    scheduler.advanceBy(50);
+    first.run(100);
+    assertEquals(3, AnimationRegistry.getActiveCount());
+
+    second.cancel();
+    assertEquals(2, AnimationRegistry.getActiveCount());
+    List<AnimationRegistry.Entry> entries = AnimationRegistry.getActiveAnimations();
+    assertEquals(2, entries.size());
+    for (AnimationRegistry.Entry entry : entries) {
+      if (entry.getAnimation() == first) {
+        assertEquals(0, entry.getElapsedMillis(), 0);
+        assertEquals(100, entry.getRemainingMillis(), 0);
+      } else {
+        assertSame(third, entry.getAnimation());
+        assertEquals(50, entry.getElapsedMillis(), 0);
+        assertEquals(250, entry.getRemainingMillis(), 0);
+      }
+      assertNull(entry.getElement());
+    }
+
+    // Completed animations are unregistered, and the high-water mark remains.
+    scheduler.runUntilIdle();
+    assertEquals(0, AnimationRegistry.getActiveCount());
+    assertEquals(3, AnimationRegistry.getHighWaterMark());
+    AnimationRegistry.resetHighWaterMark();
+    assertEquals(0, AnimationRegistry.getHighWaterMark());
+  }
+
+  /** Test that the children of a timeline report the time of the timeline. */
+  @Test
+  public void testTimelineChildren() {
+    TestAnimation first = new TestAnimation();
+    TestAnimation second = new TestAnimation();
+    AnimationTimeline timeline = new AnimationTimeline(scheduler) {};
+    timeline.add(first, 100).add(second, 100);
+    timeline.run();
+    scheduler.runFrames(3, 16);
+    assertEquals(3, AnimationRegistry.getActiveCount());
+    for (AnimationRegistry.Entry entry : AnimationRegistry.getActiveAnimations()) {
+      if (entry.getAnimation() == timeline) {
+        assertEquals(48, entry.getElapsedMillis(), 0);
+        assertEquals(152, entry.getRemainingMillis(), 0);
+      } else if (entry.getAnimation() == first) {
+        assertEquals(48, entry.getElapsedMillis(), 0);
+        assertEquals(52, entry.getRemainingMillis(), 0);
+      } else {
+        // The second child has not started yet.
+        assertSame(second, entry.getAnimation());
+        assertEquals(-52, entry.getElapsedMillis(), 0);
+        assertEquals(152, entry.getRemainingMillis(), 0);
+      }
+    }
+  }
+
+  /** Test that nothing is registered while the registry is disabled. */
+  @Test
+  public void testDisabled() {
+    TestAnimation animation = new TestAnimation();
+    animation.run(100);
+    AnimationRegistry.setEnabled(false);
+    assertEquals(0, AnimationRegistry.getActiveCount());
+    animation.run(100);
+    assertEquals(0, AnimationRegistry.getActiveCount());
+
+    // The animation is registered again from its next run.
+    AnimationRegistry.setEnabled(true);
+    animation.complete();
+    animation.run(100);
+    assertEquals(1, AnimationRegistry.getActiveCount());
+    animation.complete();
+    assertEquals(0, AnimationRegistry.getActiveCount());
+  }
+
+  /** An {@link Animation} doing nothing. */
+  private class TestAnimation extends Animation {
+    TestAnimation() {
+      super(scheduler);
+    }
+
+    @Override
+    protected void onUpdate(double progress) {}
+  }
+}
@@ -15,12 +15,15 @@
  */
 package org.gwtproject.animation.client;
 
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
 import static junit.framework.TestCase.fail;
 
 import com.google.j2cl.junit.apt.J2clTestInput;
 import elemental2.promise.Promise;
 import org.gwtproject.animation.client.AnimationScheduler.AnimationHandle;
+import org.gwtproject.animation.client.testing.StubAnimationScheduler;
 import org.gwtproject.core.client.Duration;
 import org.gwtproject.dom.client.DivElement;
 import org.gwtproject.dom.client.Document;
@@ -73,6 +76,39 @@ public class AnimationSchedulerJ2clTest {
         });
   }
 
+  /** Test that an animation is canceled once its element is detached from the document. */
+  @Test
+  public void testCancelWhenDetached() {
+    StubAnimationScheduler stubScheduler = new StubAnimationScheduler(0);
+    final boolean[] canceled = new boolean[1];
+    Animation animation =
+        new Animation(stubScheduler) {
+          @Override
+          protected void onUpdate(double progress) {}
+
+          @Override
+          protected void onCancel() {
+            canceled[0] = true;
+          }
+        };
+    animation.setCancelWhenDetached(true);
+
+    // The element may be attached after the animation is run.
+    DivElement element = Document.get().createDivElement();
+    animation.run(1000, element);
+    Document.get().getBody().appendChild(element);
+    stubScheduler.runFrames(1, 16);
+    assertTrue(animation.isRunning());
+
+    int count = Animation.getDetachedCancelCount();
+    element.removeFromParent();
+    stubScheduler.runFrames(1, 16);
+    assertFalse(animation.isRunning());
+    assertTrue(canceled[0]);
+    assertEquals(count + 1, Animation.getDetachedCancelCount());
+    assertTrue(stubScheduler.getAnimationCallbacks().isEmpty());
+  }
+
   // TODO(davido): doesn't work on htmlunit-2.19 (works in 2.18)
   // Presumably because of: http://sourceforge.net/p/htmlunit/code/11004
   // @Test(timeout = TEST_TIMEOUT)
@@ -106,4 +142,59 @@ public class AnimationSchedulerJ2clTest {
                 },
                 null));
   }
+
+  // The same as above
+  // @Test(timeout = TEST_TIMEOUT)
+  public Promise<Void> testRequestAnimationFrameCoalesced() {
+    final double[] timestamps = new double[2];
+    return new Promise<>(
+        (resolve, reject) -> {
+          scheduler.requestAnimationFrame(timestamp -> timestamps[0] = timestamp, null);
+          AnimationHandle handle =
+              scheduler.requestAnimationFrame(
+                  timestamp -> fail("The animation frame was cancelled and should not execute."),
+                  null);
+          scheduler.requestAnimationFrame(
+              timestamp -> {
+                timestamps[1] = timestamp;
+                // All the callbacks of a frame share the same timestamp.
+                assertEquals(timestamps[0], timestamps[1]);
+                resolve.onInvoke((Void) null);
+              },
+              null);
+          // Cancel the animation frame in the middle of the queue.
+          handle.cancel();
+        });
+  }
+
+  @Test(timeout = TEST_TIMEOUT)
+  public Promise<Void> testTimerScheduler() {
+    AnimationScheduler timerScheduler = new AnimationSchedulerImplTimer(20);
+    final double startTime = Duration.currentTimeMillis();
+    final double[] timestamps = new double[3];
+    return new Promise<>(
+        (resolve, reject) -> {
+          AnimationHandle handle =
+              timerScheduler.requestAnimationFrame(
+                  timestamp -> fail("The animation frame was cancelled and should not execute."),
+                  null);
+          timerScheduler.requestAnimationFrame(
+              new AnimationScheduler.AnimationCallback() {
+                private int frame = 0;
+
+                @Override
+                public void execute(double timestamp) {
+                  assertTrue(timestamp >= (frame == 0 ? startTime : timestamps[frame - 1]));
+                  timestamps[frame++] = timestamp;
+                  if (frame < timestamps.length) {
+                    timerScheduler.requestAnimationFrame(this, null);
+                  } else {
+                    resolve.onInvoke((Void) null);
+                  }
+                }
+              },
+              null);
+          handle.cancel();
+        });
+  }
 }
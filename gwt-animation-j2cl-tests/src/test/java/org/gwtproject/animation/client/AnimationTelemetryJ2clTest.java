@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import static junit.framework.TestCase.*;
+
+import com.google.j2cl.junit.apt.J2clTestInput;
+import java.util.ArrayList;
+import java.util.List;
+import org.gwtproject.animation.client.testing.StubAnimationScheduler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link AnimationTelemetry} class.
+ *
+ * <p>This class uses the virtual clock of the {@link StubAnimationScheduler} to simulate the cost
+ * of the updates.
+ */
+@J2clTestInput(AnimationTelemetryJ2clTest.class)
+public class AnimationTelemetryJ2clTest {
+
+  private StubAnimationScheduler scheduler;
+  private List<String> reported;
+  private AnimationTelemetry.Listener listener;
+
+  @Before
+  public void setUp() {
+    scheduler = new StubAnimationScheduler(0);
+    reported = new ArrayList<>();
+    listener =
+        (animation, updateMillis, intervalMillis) ->
+            reported.add(updateMillis + "/" + intervalMillis);
+    AnimationTelemetry.addListener(listener);
+  }
+
+  @After
+  public void teardown() {
+    AnimationTelemetry.setEnabled(false);
+    AnimationTelemetry.removeListener(listener);
+    AnimationTelemetry.setFrameInterval(1000.0 / 60);
+    AnimationTelemetry.setLongFrameThreshold(50);
+    scheduler = null;
+    reported = null;
+    listener = null;
+  }
+
+  /** Test that nothing is recorded while disabled. */
+  @Test
+  public void testDisabled() {
+    assertFalse(AnimationTelemetry.isEnabled());
+    TestAnimation animation = new TestAnimation(0);
+    animation.run(100);
+    scheduler.runUntilIdle();
+    assertNull(animation.getTelemetry());
+    assertTrue(reported.isEmpty());
+  }
+
+  /** Test recording the updates of an animation. */
+  @Test
+  public void testRecordUpdates() {
+    AnimationTelemetry.setEnabled(true);
+    AnimationTelemetry.setFrameInterval(16);
+    AnimationTelemetry.setLongFrameThreshold(3);
+    TestAnimation animation = new TestAnimation(2);
+    animation.run(100);
+    scheduler.runFrames(2, 16);
+    animation.cost = 4;
+    scheduler.runFrames(1, 48);
+    animation.cost = 2;
+    scheduler.runUntilIdle();
+    assertFalse(animation.isRunning());
+
+    // Updated at 0, 18, 36, 86 and 106 ms, each update taking 2 ms but the fourth one.
+    AnimationTelemetry.Snapshot snapshot = animation.getTelemetry();
+    assertEquals(5, snapshot.getFrames());
+    assertEquals(100.0 / 16, snapshot.getExpectedFrames(), 0);
+    assertEquals(2, snapshot.getDroppedFrames());
+    assertEquals(1, snapshot.getLongFrames());
+    assertEquals(12, snapshot.getTotalMillis(), 0);
+    assertEquals(4, snapshot.getMaxMillis(), 0);
+    assertEquals(50, snapshot.getMaxIntervalMillis(), 0);
+    assertEquals("[2.0/NaN, 2.0/18.0, 2.0/18.0, 4.0/50.0, 2.0/20.0]", reported.toString());
+
+    // A new run resets the telemetry.
+    animation.run(100);
+    assertEquals(1, animation.getTelemetry().getFrames());
+  }
+
+  /** Test that the dropped frames of a throttled animation are counted at its own rate. */
+  @Test
+  public void testRecordThrottledUpdates() {
+    AnimationTelemetry.setEnabled(true);
+    AnimationTelemetry.setFrameInterval(10);
+    TestAnimation animation = new TestAnimation(0);
+    animation.setMaxFrameRate(20);
+    animation.run(1000);
+    scheduler.runFrames(20, 10);
+    assertEquals(0, animation.getTelemetry().getDroppedFrames());
+
+    // Missing the update due at 240 ms drops one frame.
+    scheduler.runFrames(1, 100);
+    scheduler.runFrames(70, 10);
+    assertFalse(animation.isRunning());
+    AnimationTelemetry.Snapshot snapshot = animation.getTelemetry();
+    assertEquals(1000.0 / 50, snapshot.getExpectedFrames(), 0);
+    assertEquals(1, snapshot.getDroppedFrames());
+    assertEquals(110, snapshot.getMaxIntervalMillis(), 0);
+  }
+
+  /** An animation whose updates cost a given time on the virtual clock. */
+  private class TestAnimation extends Animation {
+    double cost;
+
+    TestAnimation(double cost) {
+      super(scheduler);
+      this.cost = cost;
+    }
+
+    @Override
+    protected void onUpdate(double progress) {
+      scheduler.advanceBy(cost);
+    }
+  }
+}
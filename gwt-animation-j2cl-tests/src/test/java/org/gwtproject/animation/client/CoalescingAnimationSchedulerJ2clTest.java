@@ -0,0 +1,410 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import static junit.framework.TestCase.*;
+
+import com.google.j2cl.junit.apt.J2clTestInput;
+import java.util.ArrayList;
+import java.util.List;
+import org.gwtproject.animation.client.AnimationScheduler.AnimationCallback;
+import org.gwtproject.animation.client.AnimationScheduler.AnimationHandle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link CoalescingAnimationScheduler} class.
+ *
+ * <p>This class uses a {@link ManualScheduler} to trigger frames and wake-ups manually.
+ */
+@J2clTestInput(CoalescingAnimationSchedulerJ2clTest.class)
+public class CoalescingAnimationSchedulerJ2clTest {
+
+  private List<String> executed;
+  private ManualScheduler scheduler;
+
+  @Before
+  public void setUp() {
+    executed = new ArrayList<>();
+    scheduler = new ManualScheduler();
+  }
+
+  @After
+  public void teardown() {
+    executed = null;
+    scheduler = null;
+  }
+
+  /** Test that all the callbacks run in a single frame, in order. */
+  @Test
+  public void testCoalesce() {
+    scheduler.requestAnimationFrame(new TestCallback("a"));
+    scheduler.requestAnimationFrame(new TestCallback("b"));
+    assertEquals(1, scheduler.scheduledFrames);
+
+    scheduler.frame(10);
+    assertEquals("[a@10.0, b@10.0]", executed.toString());
+    assertFalse(scheduler.isFrameScheduled);
+  }
+
+  /** Test canceling a callback, including from another callback of the same frame. */
+  @Test
+  public void testCancel() {
+    AnimationHandle[] handles = new AnimationHandle[1];
+    scheduler.requestAnimationFrame(timestamp -> handles[0].cancel());
+    handles[0] = scheduler.requestAnimationFrame(new TestCallback("a"));
+    AnimationHandle handle = scheduler.requestAnimationFrame(new TestCallback("b"));
+    handle.cancel();
+    handle.cancel(); // no-op.
+
+    scheduler.frame(10);
+    assertTrue(executed.isEmpty());
+
+    // Canceling the only callback cancels the frame.
+    scheduler.requestAnimationFrame(new TestCallback("c")).cancel();
+    assertFalse(scheduler.isFrameScheduled);
+  }
+
+  /** Test that callbacks requested during a frame run in the next one. */
+  @Test
+  public void testRequestDuringFrame() {
+    scheduler.requestAnimationFrame(
+        timestamp -> scheduler.requestAnimationFrame(new TestCallback("a")));
+
+    scheduler.frame(10);
+    assertTrue(executed.isEmpty());
+    assertTrue(scheduler.isFrameScheduled);
+
+    scheduler.frame(20);
+    assertEquals("[a@20.0]", executed.toString());
+  }
+
+  /** Test that frames requested for a later time wait without consuming frames. */
+  @Test
+  public void testRequestAnimationFrameAt() {
+    scheduler.requestAnimationFrameAt(new TestCallback("b"), null, 2000);
+    AnimationHandle handle = scheduler.requestAnimationFrameAt(new TestCallback("c"), null, 3000);
+    scheduler.requestAnimationFrameAt(new TestCallback("a"), null, 1000);
+    assertFalse(scheduler.isFrameScheduled);
+    assertEquals(1000 - 16, scheduler.wakeUpTime, 0);
+
+    handle.cancel();
+    scheduler.advanceTo(1000 - 16);
+    assertTrue(scheduler.isFrameScheduled);
+    assertEquals(2000 - 16, scheduler.wakeUpTime, 0);
+
+    scheduler.frame(1000);
+    assertEquals("[a@1000.0]", executed.toString());
+
+    scheduler.advanceTo(2000 - 16);
+    scheduler.frame(2000);
+    assertEquals("[a@1000.0, b@2000.0]", executed.toString());
+    assertFalse(scheduler.isFrameScheduled);
+    assertTrue(Double.isNaN(scheduler.wakeUpTime));
+  }
+
+  /** Test that deferrable callbacks are deferred once the frame budget is exhausted. */
+  @Test
+  public void testFrameBudget() {
+    scheduler.setFrameBudget(10);
+    scheduler.requestAnimationFrame(new TestCallback("a", 6, true));
+    scheduler.requestAnimationFrame(new TestCallback("b", 6, true));
+    scheduler.requestAnimationFrame(new TestCallback("c", 6, true));
+    scheduler.requestAnimationFrame(new TestCallback("d", 1, false));
+
+    scheduler.frame(10);
+    assertEquals("[a@10.0, b@10.0, d@10.0]", executed.toString());
+    assertEquals(1, scheduler.getDeferredCount());
+
+    // The deferred callback runs first in the next frame.
+    executed.clear();
+    scheduler.requestAnimationFrame(new TestCallback("e", 1, true));
+    scheduler.frame(20);
+    assertEquals("[c@20.0, e@20.0]", executed.toString());
+
+    scheduler.resetDeferredCount();
+    assertEquals(0, scheduler.getDeferredCount());
+  }
+
+  /** Test that all the measures of a frame run before any mutate. */
+  @Test
+  public void testFramePhases() {
+    PhasedAnimation a = new PhasedAnimation("a");
+    PhasedAnimation b = new PhasedAnimation("b");
+    a.run(100);
+    b.run(100);
+    assertEquals(
+        "[a.update, a.measure, a.mutate, b.update, b.measure, b.mutate]", executed.toString());
+
+    executed.clear();
+    scheduler.frame(50);
+    assertEquals(
+        "[a.update, b.update, a.measure, b.measure, a.mutate, b.mutate]", executed.toString());
+
+    // Canceling an animation during the measure phase completes it, and drops its phases.
+    executed.clear();
+    a.cancelOnMeasure = b;
+    scheduler.frame(75);
+    assertEquals("[a.update, b.update, a.measure, b.update, a.mutate]", executed.toString());
+  }
+
+  /** Test that the phases already requested run when a later callback of the frame throws. */
+  @Test
+  public void testFramePhasesAfterException() {
+    PhasedAnimation a = new PhasedAnimation("a");
+    PhasedAnimation b = new PhasedAnimation("b");
+    a.run(100);
+    b.run(100);
+    scheduler.requestAnimationFrame(
+        timestamp -> {
+          throw new IllegalStateException("callback");
+        });
+
+    executed.clear();
+    try {
+      scheduler.frame(50);
+      fail();
+    } catch (IllegalStateException e) {
+      assertEquals("callback", e.getMessage());
+    }
+    assertEquals(
+        "[a.update, b.update, a.measure, b.measure, a.mutate, b.mutate]", executed.toString());
+
+    // The next frame does not replay the phases.
+    executed.clear();
+    scheduler.frame(75);
+    assertEquals(
+        "[a.update, b.update, a.measure, b.measure, a.mutate, b.mutate]", executed.toString());
+  }
+
+  /** Test recording the telemetry of the frames. */
+  @Test
+  public void testTelemetry() {
+    AnimationTelemetry.setEnabled(true);
+    try {
+      scheduler.requestAnimationFrame(new TestCallback("a", 5, false));
+      scheduler.frame(10);
+      scheduler.requestAnimationFrame(new TestCallback("b", 60, false));
+      scheduler.frame(60);
+    } finally {
+      AnimationTelemetry.setEnabled(false);
+    }
+
+    AnimationTelemetry.Snapshot snapshot = scheduler.getTelemetry();
+    assertEquals(2, snapshot.getFrames());
+    assertEquals(2, snapshot.getDroppedFrames());
+    assertEquals(4, snapshot.getExpectedFrames(), 0);
+    assertEquals(1, snapshot.getLongFrames());
+    assertEquals(65, snapshot.getTotalMillis(), 0);
+    assertEquals(60, snapshot.getMaxMillis(), 0);
+    assertEquals(50, snapshot.getMaxIntervalMillis(), 0);
+
+    scheduler.resetTelemetry();
+    assertEquals(0, scheduler.getTelemetry().getFrames());
+  }
+
+  /** Test that the callbacks keep running while hidden under the default policy. */
+  @Test
+  public void testHiddenPolicyRun() {
+    assertEquals(CoalescingAnimationScheduler.HiddenPolicy.RUN, scheduler.getHiddenPolicy());
+    scheduler.requestAnimationFrame(new TestCallback("a"));
+    scheduler.hide(true);
+    scheduler.frame(10);
+    assertEquals("[a@10.0]", executed.toString());
+  }
+
+  /** Test that the animations resume where they were once the document is visible again. */
+  @Test
+  public void testHiddenPolicyResume() {
+    scheduler.setHiddenPolicy(CoalescingAnimationScheduler.HiddenPolicy.RESUME);
+    TestAnimation animation = new TestAnimation();
+    animation.run(1000);
+    scheduler.frame(500);
+
+    scheduler.hide(true);
+    assertFalse(scheduler.isFrameScheduled);
+    scheduler.requestAnimationFrame(new TestCallback("a"));
+    assertFalse(scheduler.isFrameScheduled);
+    scheduler.now = 10000;
+    assertEquals(500, scheduler.currentTimeMillis(), 0);
+
+    scheduler.hide(false);
+    assertTrue(scheduler.isFrameScheduled);
+    scheduler.frame(10250);
+    assertEquals("[start, 0.0, 0.5, 0.75, a@750.0]", executed.toString());
+    assertEquals(750, scheduler.currentTimeMillis(), 0);
+  }
+
+  /** Test that the animations complete at once when the document is visible again. */
+  @Test
+  public void testHiddenPolicyComplete() {
+    scheduler.setHiddenPolicy(CoalescingAnimationScheduler.HiddenPolicy.COMPLETE);
+    new TestAnimation().run(1000);
+    new TestAnimation().run(1000, 5000);
+    scheduler.frame(500);
+
+    scheduler.hide(true);
+    scheduler.requestAnimationFrame(new TestCallback("a"));
+    scheduler.now = 10000;
+    scheduler.hide(false);
+    assertEquals("[start, 0.0, 0.5, complete, start, 0.0, complete]", executed.toString());
+    assertTrue(Double.isNaN(scheduler.wakeUpTime));
+
+    // Other callbacks are left alone.
+    scheduler.frame(10010);
+    assertEquals(
+        "[start, 0.0, 0.5, complete, start, 0.0, complete, a@10010.0]", executed.toString());
+  }
+
+  /** An animation recording its phases. */
+  private class PhasedAnimation extends Animation {
+    private final String name;
+    private Animation cancelOnMeasure;
+
+    PhasedAnimation(String name) {
+      super(scheduler);
+      this.name = name;
+    }
+
+    @Override
+    protected void onUpdate(double progress) {
+      executed.add(name + ".update");
+    }
+
+    @Override
+    protected void onMeasure(double progress) {
+      executed.add(name + ".measure");
+      if (cancelOnMeasure != null) {
+        cancelOnMeasure.cancel();
+      }
+    }
+
+    @Override
+    protected void onMutate(double progress) {
+      executed.add(name + ".mutate");
+    }
+  }
+
+  /** An animation recording its progress. */
+  private class TestAnimation extends Animation {
+    TestAnimation() {
+      super(scheduler);
+    }
+
+    @Override
+    protected double interpolate(double progress) {
+      return progress;
+    }
+
+    @Override
+    protected void onStart() {
+      executed.add("start");
+      super.onStart();
+    }
+
+    @Override
+    protected void onUpdate(double progress) {
+      executed.add(String.valueOf(progress));
+    }
+
+    @Override
+    protected void onComplete() {
+      executed.add("complete");
+    }
+  }
+
+  /** A callback recording its executions. */
+  private class TestCallback implements AnimationCallback {
+    private final String name;
+    private final double cost;
+    private final boolean deferrable;
+
+    TestCallback(String name) {
+      this(name, 0, false);
+    }
+
+    TestCallback(String name, double cost, boolean deferrable) {
+      this.name = name;
+      this.cost = cost;
+      this.deferrable = deferrable;
+    }
+
+    @Override
+    public void execute(double timestamp) {
+      executed.add(name + "@" + timestamp);
+      scheduler.now += cost;
+    }
+
+    @Override
+    public boolean isDeferrable() {
+      return deferrable;
+    }
+  }
+
+  /** A {@link CoalescingAnimationScheduler} with a manual clock, frames and wake-ups. */
+  private static class ManualScheduler extends CoalescingAnimationScheduler {
+    double now;
+    boolean isFrameScheduled;
+    int scheduledFrames;
+    double wakeUpTime = Double.NaN;
+
+    void frame(double timestamp) {
+      assertTrue(isFrameScheduled);
+      isFrameScheduled = false;
+      now = timestamp;
+      dispatchFrame(timestamp);
+    }
+
+    void advanceTo(double time) {
+      now = time;
+      if (wakeUpTime <= now) {
+        wakeUpTime = Double.NaN;
+        wakeUp();
+      }
+    }
+
+    void hide(boolean hidden) {
+      setHidden(hidden);
+    }
+
+    @Override
+    protected double now() {
+      return now;
+    }
+
+    @Override
+    protected void scheduleFrame() {
+      isFrameScheduled = true;
+      scheduledFrames++;
+    }
+
+    @Override
+    protected void cancelFrame() {
+      isFrameScheduled = false;
+    }
+
+    @Override
+    protected void scheduleWakeUp(double delayMillis) {
+      wakeUpTime = now + delayMillis;
+    }
+
+    @Override
+    protected void cancelWakeUp() {
+      wakeUpTime = Double.NaN;
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import static junit.framework.TestCase.*;
+
+import com.google.j2cl.junit.apt.J2clTestInput;
+import org.junit.Test;
+
+/** Tests the {@link Easings} class. */
+@J2clTestInput(EasingsJ2clTest.class)
+public class EasingsJ2clTest {
+
+  private static final double DELTA = 1e-4;
+
+  /** Test that the sampled easings are exact at both ends. */
+  @Test
+  public void testEndpoints() {
+    Easing[] easings = {
+      Easings.LINEAR,
+      Easings.COSINE,
+      Easings.SAMPLED_COSINE,
+      Easings.EASE,
+      Easings.EASE_IN,
+      Easings.EASE_OUT,
+      Easings.EASE_IN_OUT,
+      Easings.BACK,
+      Easings.ELASTIC,
+      Easings.steps(3)
+    };
+    for (Easing easing : easings) {
+      assertEquals(0.0, easing.ease(0.0));
+      assertEquals(1.0, easing.ease(1.0));
+    }
+  }
+
+  /** Test the exact cosine interpolation, and the sampled one used by default. */
+  @Test
+  public void testCosine() {
+    for (int i = 0; i <= 100; i++) {
+      double progress = i / 100.0;
+      assertEquals((1 + Math.cos(Math.PI + progress * Math.PI)) / 2, Easings.COSINE.ease(progress));
+      assertEquals(Easings.COSINE.ease(progress), Easings.SAMPLED_COSINE.ease(progress), 1e-5);
+    }
+    // Out of range, as passed by overridden interpolations, the progress is not clamped.
+    assertEquals((1 + Math.cos(Math.PI + 1.5 * Math.PI)) / 2, Easings.COSINE.ease(1.5));
+  }
+
+  /** Test the cubic bézier easings and the constants of the CSS keywords. */
+  @Test
+  public void testCubicBezier() {
+    assertSame(Easings.EASE, Easings.cubicBezier(0.25, 0.1, 0.25, 1));
+    assertSame(Easings.EASE_IN, Easings.cubicBezier(0.42, 0, 1, 1));
+    assertSame(Easings.EASE_OUT, Easings.cubicBezier(0, 0, 0.58, 1));
+    assertSame(Easings.EASE_IN_OUT, Easings.cubicBezier(0.42, 0, 0.58, 1));
+    assertEquals(0.5, Easings.EASE_IN_OUT.ease(0.5), DELTA);
+    assertEquals(0.8024, Easings.EASE.ease(0.5), DELTA);
+    assertEquals(0.3, Easings.cubicBezier(0, 0, 1, 1).ease(0.3), DELTA);
+  }
+
+  /** Test that the cubic bézier easings are shared through a bounded cache. */
+  @Test
+  public void testCubicBezierCache() {
+    Easing easing = Easings.cubicBezier(0.1, 0.2, 0.3, 0.4);
+    assertSame(easing, Easings.cubicBezier(0.1, 0.2, 0.3, 0.4));
+
+    // Using other control points evicts the least recently used easing.
+    for (int i = 0; i < Easings.CUBIC_BEZIER_CACHE_SIZE; i++) {
+      Easings.cubicBezier(0.5, i, 0.5, 1);
+    }
+    assertNotSame(easing, Easings.cubicBezier(0.1, 0.2, 0.3, 0.4));
+  }
+
+  /** Test the stepped easings. */
+  @Test
+  public void testSteps() {
+    assertEquals(0.25, Easings.steps(4).ease(0.3));
+    assertEquals(0.5, Easings.steps(4, true).ease(0.3));
+    assertEquals(0.0, Easings.steps(4).ease(0.0));
+    assertEquals(0.25, Easings.steps(4, true).ease(0.0));
+    assertEquals(0.5, Easings.steps(4, true).ease(0.25));
+    assertEquals(0.75, Easings.steps(4).ease(0.75));
+    assertEquals(1.0, Easings.steps(4, true).ease(0.75));
+  }
+
+  /** Test that {@link Animation#interpolate(double)} applies the easing. */
+  @Test
+  public void testAnimationEasing() {
+    Animation animation =
+        new Animation() {
+          @Override
+          protected void onUpdate(double progress) {}
+        };
+    assertSame(Easings.SAMPLED_COSINE, animation.getEasing());
+    animation.setEasing(Easings.LINEAR);
+    assertEquals(0.3, animation.interpolate(0.3));
+  }
+}
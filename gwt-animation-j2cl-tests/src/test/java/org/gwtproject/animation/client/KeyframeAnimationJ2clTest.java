@@ -0,0 +1,168 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import static junit.framework.TestCase.*;
+
+import com.google.j2cl.junit.apt.J2clTestInput;
+import java.util.ArrayList;
+import java.util.List;
+import org.gwtproject.animation.client.KeyframeAnimation.Keyframe;
+import org.gwtproject.animation.client.testing.StubAnimationScheduler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link KeyframeAnimation} class.
+ *
+ * <p>The animations run without an element, so that they fall back to the frames of a {@link
+ * StubAnimationScheduler}.
+ */
+@J2clTestInput(KeyframeAnimationJ2clTest.class)
+public class KeyframeAnimationJ2clTest {
+
+  private StubAnimationScheduler scheduler;
+
+  @Before
+  public void setUp() {
+    scheduler = new StubAnimationScheduler(0);
+  }
+
+  @After
+  public void teardown() {
+    scheduler = null;
+  }
+
+  /** Test that the keyframes must cover the animation in order. */
+  @Test
+  public void testInvalidKeyframes() {
+    assertInvalid(Keyframe.at(0));
+    assertInvalid(Keyframe.at(0), Keyframe.at(0.5));
+    assertInvalid(Keyframe.at(0.5), Keyframe.at(1));
+    assertInvalid(Keyframe.at(0), Keyframe.at(0.6), Keyframe.at(0.4), Keyframe.at(1));
+    try {
+      Keyframe.at(1.5);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // expected.
+    }
+  }
+
+  /** Test interpolating the keyframes. */
+  @Test
+  public void testInterpolation() {
+    KeyframeAnimation animation =
+        new TestAnimation(
+            Keyframe.at(0).translate(0, 0).opacity(0),
+            Keyframe.at(0.5).translate(100, 0),
+            Keyframe.at(1).translate(100, 50).scale(2).opacity(1));
+
+    assertEquals("translate(0px, 0px) scale(1) rotate(0deg)", animation.getTransform(0));
+    assertEquals("translate(50px, 0px) scale(1) rotate(0deg)", animation.getTransform(0.25));
+    assertEquals("translate(100px, 25px) scale(1.5) rotate(0deg)", animation.getTransform(0.75));
+    assertEquals("translate(100px, 50px) scale(2) rotate(0deg)", animation.getTransform(1));
+
+    // Keyframes not setting a property use its identity value.
+    assertEquals("0", animation.getOpacity(0));
+    assertEquals("0.5", animation.getOpacity(0.25));
+    assertEquals("0.333", animation.getOpacity(1.0 / 6));
+    assertEquals("1", animation.getOpacity(0.75));
+
+    // Properties no keyframe sets are not animated.
+    assertNull(animation.getFilter(0.5));
+
+    // Easings overshooting the animation extrapolate the outer keyframes.
+    assertEquals("translate(-20px, 0px) scale(1) rotate(0deg)", animation.getTransform(-0.1));
+    assertEquals("translate(100px, 60px) scale(2.2) rotate(0deg)", animation.getTransform(1.1));
+  }
+
+  /** Test the other properties. */
+  @Test
+  public void testRotateAndBlur() {
+    KeyframeAnimation animation =
+        new TestAnimation(Keyframe.at(0).blur(4), Keyframe.at(1).rotate(90));
+    assertEquals("translate(0px, 0px) scale(1) rotate(45deg)", animation.getTransform(0.5));
+    assertEquals("blur(2px)", animation.getFilter(0.5));
+    assertNull(animation.getOpacity(0.5));
+  }
+
+  /** Test that the animation falls back to the frames of its scheduler without an element. */
+  @Test
+  public void testFallback() {
+    TestAnimation animation =
+        new TestAnimation(Keyframe.at(0).opacity(0), Keyframe.at(1).opacity(1));
+    animation.setEasing(Easings.LINEAR);
+    animation.run(100);
+    assertTrue(animation.isRunning());
+    scheduler.runFrames(3, 16);
+    animation.cancel();
+    assertFalse(animation.isRunning());
+    assertEquals(
+        "[start, update 0.0, update 0.16, update 0.32, update 0.48, complete, update 1.0]",
+        animation.reported.toString());
+  }
+
+  /** Test that a delayed animation starts at its start time. */
+  @Test
+  public void testDelayedStart() {
+    TestAnimation animation =
+        new TestAnimation(Keyframe.at(0).opacity(0), Keyframe.at(1).opacity(1));
+    animation.setEasing(Easings.LINEAR);
+    animation.run(100, scheduler.currentTimeMillis() + 50);
+    scheduler.runFrames(3, 16);
+    assertTrue(animation.isRunning());
+    assertEquals("[]", animation.reported.toString());
+    scheduler.runFrames(1, 16);
+    assertEquals("[start, update 0.0]", animation.reported.toString());
+  }
+
+  private void assertInvalid(Keyframe... keyframes) {
+    try {
+      new TestAnimation(keyframes);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // expected.
+    }
+  }
+
+  /** A {@link KeyframeAnimation} reporting its lifecycle. */
+  private class TestAnimation extends KeyframeAnimation {
+    final List<String> reported = new ArrayList<>();
+
+    TestAnimation(Keyframe... keyframes) {
+      super(scheduler, keyframes);
+    }
+
+    @Override
+    protected void onStart() {
+      reported.add("start");
+      super.onStart();
+    }
+
+    @Override
+    protected void onUpdate(double progress) {
+      reported.add("update " + progress);
+      super.onUpdate(progress);
+    }
+
+    @Override
+    protected void onComplete() {
+      reported.add("complete");
+      super.onComplete();
+    }
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import static junit.framework.TestCase.*;
+
+import com.google.j2cl.junit.apt.J2clTestInput;
+import java.util.ArrayList;
+import java.util.List;
+import org.gwtproject.animation.client.AnimationScheduler.AnimationHandle;
+import org.gwtproject.animation.client.testing.StubAnimationScheduler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests the virtual clock of the {@link StubAnimationScheduler} class. */
+@J2clTestInput(StubAnimationSchedulerJ2clTest.class)
+public class StubAnimationSchedulerJ2clTest {
+
+  private List<String> executed;
+  private StubAnimationScheduler scheduler;
+
+  @Before
+  public void setUp() {
+    executed = new ArrayList<>();
+    scheduler = new StubAnimationScheduler(1000);
+  }
+
+  @After
+  public void teardown() {
+    executed = null;
+    scheduler = null;
+  }
+
+  /** Test that the clock only advances on demand. */
+  @Test
+  public void testAdvanceBy() {
+    assertEquals(1000, scheduler.currentTimeMillis(), 0);
+    scheduler.requestAnimationFrame(timestamp -> executed.add("a@" + timestamp));
+    scheduler.advanceBy(500);
+    assertEquals(1500, scheduler.currentTimeMillis(), 0);
+    assertTrue(executed.isEmpty());
+
+    try {
+      scheduler.advanceBy(-1);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // expected.
+    }
+  }
+
+  /** Test that each frame executes the callbacks requested before it. */
+  @Test
+  public void testRunFrames() {
+    scheduler.requestAnimationFrame(
+        timestamp -> {
+          executed.add("a@" + timestamp);
+          scheduler.requestAnimationFrame(t -> executed.add("b@" + t));
+        });
+    AnimationHandle[] handle = new AnimationHandle[1];
+    scheduler.requestAnimationFrame(timestamp -> handle[0].cancel());
+    handle[0] = scheduler.requestAnimationFrame(timestamp -> executed.add("c@" + timestamp));
+
+    scheduler.runFrames(3, 10);
+    assertEquals("[a@1010.0, b@1020.0]", executed.toString());
+    assertEquals(1030, scheduler.currentTimeMillis(), 0);
+  }
+
+  /** Test running an animation to completion. */
+  @Test
+  public void testRunUntilIdle() {
+    List<Double> progresses = new ArrayList<>();
+    Animation animation =
+        new Animation(scheduler) {
+          @Override
+          protected void onUpdate(double progress) {
+            progresses.add(progress);
+          }
+        };
+    animation.setEasing(Easings.LINEAR);
+    animation.run(160, 1112);
+
+    assertEquals(17, scheduler.runUntilIdle());
+    assertFalse(animation.isRunning());
+    assertEquals(11, progresses.size());
+    assertEquals(0.0, progresses.get(0));
+    assertEquals(0.1, progresses.get(1), 1e-9);
+    assertEquals(1.0, progresses.get(10));
+    assertEquals(0, scheduler.runUntilIdle());
+  }
+
+  /** Test that an animation which never completes is reported. */
+  @Test
+  public void testRunUntilIdleBusy() {
+    scheduler.requestAnimationFrame(
+        new AnimationScheduler.AnimationCallback() {
+          @Override
+          public void execute(double timestamp) {
+            scheduler.requestAnimationFrame(this);
+          }
+        });
+    try {
+      scheduler.runUntilIdle();
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      // expected.
+    }
+  }
+}
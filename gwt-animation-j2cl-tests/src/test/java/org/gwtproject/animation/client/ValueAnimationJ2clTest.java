@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import static junit.framework.TestCase.*;
+
+import com.google.j2cl.junit.apt.J2clTestInput;
+import java.util.ArrayList;
+import java.util.List;
+import org.gwtproject.animation.client.AnimationScheduler.AnimationCallback;
+import org.gwtproject.animation.client.AnimationScheduler.AnimationHandle;
+import org.gwtproject.animation.client.testing.StubAnimationScheduler;
+import org.gwtproject.dom.client.Element;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests the {@link ValueAnimation} class. */
+@J2clTestInput(ValueAnimationJ2clTest.class)
+public class ValueAnimationJ2clTest {
+
+  private StubAnimationScheduler scheduler;
+  private TestAnimation animation;
+
+  @Before
+  public void setUp() {
+    scheduler = new StubAnimationScheduler(0);
+    animation = new TestAnimation();
+    animation.setEasing(Easings.LINEAR);
+  }
+
+  @After
+  public void teardown() {
+    scheduler = null;
+    animation = null;
+  }
+
+  /** Test running the animation between two values. */
+  @Test
+  public void testRun() {
+    animation.run(10, 20, 100);
+    assertEquals("[start, 10.0]", animation.reported.toString());
+    scheduler.runFrames(5, 10);
+    assertEquals(15, animation.getValue(), 1e-9);
+    scheduler.runUntilIdle();
+    assertEquals(20, animation.getValue(), 1e-9);
+    assertEquals("complete", animation.reported.get(animation.reported.size() - 1));
+  }
+
+  /** Test that retargeting preserves the value and the velocity, without restarting. */
+  @Test
+  public void testRetarget() {
+    animation.run(0, 100, 100);
+    scheduler.runFrames(5, 10);
+    assertEquals(50, animation.getValue(), 1e-9);
+    animation.reported.clear();
+
+    animation.retarget(0, 100);
+    assertTrue(animation.isRunning());
+    assertEquals(0, animation.getTarget(), 0);
+    assertEquals("[]", animation.reported.toString());
+    // The frame requested before retargeting is replaced.
+    assertEquals(1, scheduler.getAnimationCallbacks().size());
+
+    // Still moving up at 1 unit per millisecond: 50 - 5 + 150 * 0.1 * 0.9^2.
+    scheduler.runFrames(1, 10);
+    assertEquals(57.15, animation.getValue(), 1e-6);
+    assertEquals(1, animation.reported.size());
+
+    // The new run lasts 100 milliseconds from the retargeting, and ends on the new target.
+    scheduler.runFrames(8, 10);
+    assertTrue(animation.isRunning());
+    scheduler.runFrames(1, 10);
+    assertFalse(animation.isRunning());
+    assertEquals(0, animation.getValue(), 1e-9);
+    assertEquals("complete", animation.reported.get(animation.reported.size() - 1));
+    assertFalse(animation.reported.contains("cancel"));
+  }
+
+  /** Test that retargeting an animation that is not running runs it from its current value. */
+  @Test
+  public void testRetargetNotRunning() {
+    animation.run(0, 100, 100);
+    scheduler.runUntilIdle();
+    animation.reported.clear();
+
+    animation.retarget(50, 100);
+    assertTrue(animation.isRunning());
+    assertEquals("[start, 100.0]", animation.reported.toString());
+    scheduler.runFrames(5, 10);
+    assertEquals(75, animation.getValue(), 1e-9);
+  }
+
+  /** Test that retargeting a throttled animation requests the next frame. */
+  @Test
+  public void testRetargetThrottled() {
+    List<String> requests = new ArrayList<>();
+    scheduler =
+        new StubAnimationScheduler(0) {
+          @Override
+          public StubAnimationHandle requestAnimationFrame(
+              AnimationCallback callback, Element element) {
+            requests.add("frame");
+            return super.requestAnimationFrame(callback, element);
+          }
+
+          @Override
+          public AnimationHandle requestAnimationFrameAt(
+              AnimationCallback callback, Element element, double time) {
+            requests.add("at");
+            return super.requestAnimationFrame(callback, element);
+          }
+        };
+    animation = new TestAnimation();
+    animation.setEasing(Easings.LINEAR);
+    animation.setMaxFrameRate(10);
+    animation.run(0, 100, 1000);
+    assertEquals("[at]", requests.toString());
+
+    scheduler.advanceBy(50);
+    animation.retarget(0, 500);
+    assertEquals("[at, frame]", requests.toString());
+    assertEquals(1, scheduler.getAnimationCallbacks().size());
+  }
+
+  /** Test that a deferred run captures its timing when it starts, at the next frame. */
+  @Test
+  public void testDeferredStart() {
+    animation.setDeferredStart(true);
+    animation.run(0, 100, 100);
+    // Retargeting before the start replaces the deferred run.
+    animation.retarget(50, 100);
+    assertEquals("[]", animation.reported.toString());
+    assertEquals(50, animation.getTarget(), 0);
+
+    scheduler.runFrames(1, 20);
+    assertEquals("start", animation.reported.get(0));
+    scheduler.runFrames(5, 10);
+    assertEquals(35, animation.getValue(), 1e-9);
+
+    // Retargeting continues from the current value, with the timing captured at the start.
+    animation.retarget(0, 100);
+    scheduler.runFrames(10, 10);
+    assertFalse(animation.isRunning());
+    assertEquals(0, animation.getValue(), 1e-9);
+  }
+
+  /** A {@link ValueAnimation} recording its values. */
+  private class TestAnimation extends ValueAnimation {
+    final List<String> reported = new ArrayList<>();
+
+    TestAnimation() {
+      super(scheduler);
+    }
+
+    @Override
+    protected void onStart() {
+      reported.add("start");
+      super.onStart();
+    }
+
+    @Override
+    protected void onUpdateValue(double value) {
+      reported.add(String.valueOf(value));
+    }
+
+    @Override
+    protected void onComplete() {
+      super.onComplete();
+      reported.add("complete");
+    }
+
+    @Override
+    protected void onCancel() {
+      reported.add("cancel");
+      super.onCancel();
+    }
+  }
+}
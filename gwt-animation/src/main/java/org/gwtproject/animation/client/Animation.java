@@ -15,9 +15,11 @@
  */
 package org.gwtproject.animation.client;
 
+import jsinterop.base.Js;
 import org.gwtproject.animation.client.AnimationScheduler.AnimationCallback;
 import org.gwtproject.animation.client.AnimationScheduler.AnimationHandle;
-import org.gwtproject.core.client.Duration;
+import org.gwtproject.animation.client.AnimationScheduler.FramePhases;
+import org.gwtproject.dom.client.Document;
 import org.gwtproject.dom.client.Element;
 
 /**
@@ -30,6 +32,9 @@ public abstract class Animation {
   /** The duration of the {@link Animation} in milliseconds. */
   private int duration = -1;
 
+  /** The easing of the {@link Animation}. */
+  private Easing easing = Easings.SAMPLED_COSINE;
+
   /** The element being animated. */
   private Element element;
 
@@ -50,21 +55,62 @@ public abstract class Animation {
   /** The start time of the {@link Animation}. */
   private double startTime = -1;
 
-  private final AnimationCallback callback =
-      new AnimationCallback() {
-        @Override
-        public void execute(double timestamp) {
-          if (update(timestamp)) {
-            // Schedule the next animation frame.
-            requestHandle = scheduler.requestAnimationFrame(callback, element);
-          } else {
-            requestHandle = null;
-          }
-        }
-      };
+  private final FrameCallback callback = new FrameCallback();
+
+  /** The maximum update rate of all the animations, in updates per second, or 0 if unlimited. */
+  private static double globalMaxFrameRate = 0;
+
+  /** The maximum update rate of this animation, in updates per second, or 0 if unlimited. */
+  private double maxFrameRate = 0;
+
+  /** The time before which the frames are skipped, to honor the maximum update rate. */
+  private double nextUpdateTime = Double.NEGATIVE_INFINITY;
+
+  /** Are the updates skipped while the element is outside the viewport. */
+  private boolean skipOffscreenUpdates = false;
+
+  /** The element tracked by the {@link OffscreenTracker} for the current run. */
+  private Element trackedElement;
+
+  /** Is the element of the current run outside the viewport. */
+  private boolean isOffscreen = false;
+
+  /** Are the phases of the current frame pending. */
+  private boolean hasPendingPhases = false;
+
+  /** The progress passed to the pending phases. */
+  private double phaseProgress;
+
+  /** The telemetry of the current run, allocated once the telemetry is enabled. */
+  private AnimationTelemetry.Recorder telemetry;
+
   /** Did the animation start before {@link #cancel()} was called. */
   private boolean wasStarted = false;
 
+  /** Is the current run driven by another animation through {@link #step(double)}. */
+  private boolean isDriven = false;
+
+  /** The time last passed to {@link #step(double)}, in the timebase of the driving animation. */
+  private double drivenTime;
+
+  /** Are the runs deferred to the next frame. */
+  private boolean deferredStart = false;
+
+  /** The deferred run, allocated once the runs are deferred. */
+  private PendingStart pendingStart;
+
+  /** Is the animation canceled once its element is detached from the document. */
+  private boolean cancelWhenDetached = false;
+
+  /** The number of runs canceled because their element was detached from the document. */
+  private static int detachedCancelCount = 0;
+
+  /** The index of the animation in the {@link AnimationRegistry}, or -1 if not registered. */
+  int registryIndex = -1;
+
+  /** The identifier of the animation in the {@link AnimationTracing}, or 0 if not assigned. */
+  int traceId = 0;
+
   /** Construct a new {@link Animation}. */
   public Animation() {
     this(AnimationScheduler.get());
@@ -103,7 +149,7 @@ public abstract class Animation {
    * @param element the element that visually bounds the entire animation
    */
   public void run(int duration, Element element) {
-    run(duration, Duration.currentTimeMillis(), element);
+    run(duration, scheduler.currentTimeMillis(), element);
   }
 
   /**
@@ -116,10 +162,56 @@ public abstract class Animation {
    * Otherwise, it will be called unconditionally.
    *
    * @param duration the duration of the animation in milliseconds
-   * @param startTime the synchronized start time in milliseconds
+   * @param startTime the synchronized start time in milliseconds, in the timebase of {@link
+   *     AnimationScheduler#currentTimeMillis()}
    * @param element the element that visually bounds the entire animation
+   * @see #setDeferredStart(boolean)
    */
   public void run(int duration, double startTime, Element element) {
+    if (deferredStart) {
+      if (pendingStart == null) {
+        pendingStart = new PendingStart();
+      }
+      pendingStart.request(duration, startTime, element);
+      return;
+    }
+    start(duration, startTime, element);
+
+    // Execute the first callback.
+    callback.execute(scheduler.currentTimeMillis());
+  }
+
+  /**
+   * Start this animation without requesting any frame from its scheduler, so that it can be driven
+   * by another animation through {@link #step(double)}. If the animation is already running, it
+   * will be canceled first.
+   *
+   * @param duration the duration of the animation in milliseconds
+   * @param startTime the start time in the timebase of the driving animation
+   */
+  void startDriven(int duration, double startTime) {
+    start(duration, startTime, null);
+    isDriven = true;
+    drivenTime = 0;
+  }
+
+  /**
+   * Update an animation started with {@link #startDriven(int, double)}.
+   *
+   * @param curTime the current time in the timebase of the driving animation
+   * @return true if the animation should run again, false if it is complete or not running
+   */
+  boolean step(double curTime) {
+    if (!isRunning) {
+      return false;
+    }
+    drivenTime = curTime;
+    boolean result = update(curTime);
+    requestPhases();
+    return result;
+  }
+
+  private void start(int duration, double startTime, Element element) {
     // Cancel the animation if it is running
     cancel();
 
@@ -130,16 +222,146 @@ public abstract class Animation {
     this.startTime = startTime;
     this.element = element;
     ++runId;
+    isDriven = false;
+    trace("run");
+    nextUpdateTime = Double.NEGATIVE_INFINITY;
+    if (AnimationRegistry.enabled) {
+      AnimationRegistry.add(this);
+    }
+    if (telemetry != null) {
+      telemetry.reset();
+    }
 
-    // Execute the first callback.
-    callback.execute(Duration.currentTimeMillis());
+    if (skipOffscreenUpdates && element != null) {
+      OffscreenTracker tracker = OffscreenTracker.get();
+      if (tracker != null) {
+        trackedElement = element;
+        tracker.observe(element, this);
+      }
+    }
+  }
+
+  /**
+   * Change the duration and start time of the current run in place, without canceling it: no
+   * lifecycle method is called, and its pending frame request is replaced by a request for the next
+   * frame, as a request made for the previous timing, e.g. throttled by the maximum frame rate, may
+   * come too late. If a run is deferred, change its arguments instead. Do nothing if the animation
+   * is not running.
+   *
+   * @param duration the new duration in milliseconds
+   * @param startTime the new start time, in the timebase of {@link
+   *     AnimationScheduler#currentTimeMillis()}
+   */
+  void retime(int duration, double startTime) {
+    if (pendingStart != null && pendingStart.isPending()) {
+      pendingStart.duration = duration;
+      pendingStart.startTime = startTime;
+      return;
+    }
+    if (!isRunning) {
+      return;
+    }
+    this.duration = duration;
+    this.startTime = startTime;
+    nextUpdateTime = Double.NEGATIVE_INFINITY;
+    if (requestHandle != null) {
+      requestHandle.cancel();
+      requestHandle = scheduler.requestAnimationFrame(callback, element);
+    }
+  }
+
+  /**
+   * Returns true if the current run has started, i.e. {@link #onStart()} has been called and the
+   * run has not completed nor been canceled since.
+   *
+   * @return true if started, false if not
+   */
+  boolean isRunStarted() {
+    return isStarted;
+  }
+
+  /**
+   * Returns the scheduler requesting the frames of this animation.
+   *
+   * @return the scheduler
+   */
+  AnimationScheduler getScheduler() {
+    return scheduler;
+  }
+
+  /**
+   * Returns the duration of the current run.
+   *
+   * @return the duration in milliseconds
+   */
+  int getRunDuration() {
+    return duration;
+  }
+
+  /**
+   * Returns the start time of the current run.
+   *
+   * @return the start time, in the timebase of {@link AnimationScheduler#currentTimeMillis()}
+   */
+  double getRunStartTime() {
+    return startTime;
+  }
+
+  /**
+   * Returns the element of the current run.
+   *
+   * @return the element, or null if none
+   */
+  Element getRunElement() {
+    return element;
+  }
+
+  /**
+   * Skip the updates of the current run until its end, without requesting any frame meanwhile, e.g.
+   * while the browser plays it. Called from {@link #onStart()}.
+   */
+  void skipUpdatesUntilEnd() {
+    nextUpdateTime = startTime + duration;
+  }
+
+  /** Stop tracking the current run and its element, once it is over. */
+  private void untrack() {
+    if (trackedElement != null) {
+      OffscreenTracker.get().unobserve(trackedElement, this);
+      trackedElement = null;
+    }
+    isOffscreen = false;
+    AnimationRegistry.remove(this);
+  }
+
+  /**
+   * Record an instant event of the current run, if the tracing is enabled.
+   *
+   * @param name the name of the event
+   */
+  private void trace(String name) {
+    if (AnimationTracing.enabled) {
+      AnimationTracing.record(this, name, scheduler.currentTimeMillis(), Double.NaN);
+    }
+  }
+
+  /** Returns a view of the current run for the {@link AnimationRegistry}. */
+  AnimationRegistry.Entry toRegistryEntry() {
+    // The start time of a driven run is in the timebase of the driving animation.
+    double now = isDriven ? drivenTime : scheduler.currentTimeMillis();
+    double elapsed = now - startTime;
+    return new AnimationRegistry.Entry(this, elapsed, Math.max(duration - elapsed, 0), element);
   }
 
   /**
    * Immediately cancel this animation. If the animation is running or is scheduled to run, {@link
-   * #onCancel()} will be called.
+   * #onCancel()} will be called. A deferred run is dropped without calling any method.
    */
   public void cancel() {
+    if (pendingStart != null) {
+      pendingStart.cancel();
+    }
+
     // Ignore if the animation is not currently running.
     if (!isRunning) {
       return;
@@ -150,6 +372,8 @@ public abstract class Animation {
     element = null;
     isRunning = false;
     isStarted = false;
+    hasPendingPhases = false;
+    untrack();
 
     // Cancel the animation request.
     if (requestHandle != null) {
@@ -157,9 +381,51 @@ public abstract class Animation {
       requestHandle = null;
     }
 
+    trace("cancel");
     onCancel();
   }
 
+  /**
+   * Immediately complete this animation, skipping its remaining updates. If the animation has not
+   * started yet, {@link #onStart()} is called first, then {@link #onComplete()}. If the animation
+   * is not running, do nothing.
+   */
+  public void complete() {
+    if (pendingStart != null && pendingStart.isPending()) {
+      pendingStart.cancel();
+      start(pendingStart.duration, pendingStart.startTime, pendingStart.element);
+    }
+
+    // Ignore if the animation is not currently running.
+    if (!isRunning) {
+      return;
+    }
+    final int curRunId = runId;
+
+    // Cancel the animation request.
+    if (requestHandle != null) {
+      requestHandle.cancel();
+      requestHandle = null;
+    }
+
+    if (!isStarted) {
+      isStarted = true;
+      trace("onStart");
+      onStart();
+      if (!isRunning(curRunId)) {
+        // This run was canceled.
+        return;
+      }
+    }
+    isRunning = false;
+    isStarted = false;
+    untrack();
+    setPhaseProgress(interpolate(1.0));
+    trace("onComplete");
+    onComplete();
+    requestPhases();
+  }
+
   /**
    * Called immediately after the animation is canceled. The default implementation of this method
    * calls {@link #onComplete()} only if the animation has actually started running.
@@ -193,11 +459,195 @@ public abstract class Animation {
    * <p>Depending on the {@link Animation}, the return value of this method can be less than 0.0 or
    * greater than 1.0.
    *
+   * <p>The default implementation applies the {@link Easing} set through {@link
+   * #setEasing(Easing)}.
+   *
    * @param progress the linear progress, between 0.0 and 1.0
    * @return the interpolated progress
    */
   protected double interpolate(double progress) {
-    return (1 + Math.cos(Math.PI + progress * Math.PI)) / 2;
+    return easing.ease(progress);
+  }
+
+  /**
+   * Returns the easing applied by {@link #interpolate(double)}.
+   *
+   * @return the easing, {@link Easings#SAMPLED_COSINE} by default
+   */
+  public Easing getEasing() {
+    return easing;
+  }
+
+  /**
+   * Set the easing applied by {@link #interpolate(double)}.
+   *
+   * @param easing the easing, not null
+   * @see Easings
+   */
+  public void setEasing(Easing easing) {
+    if (easing == null) {
+      throw new NullPointerException("easing must not be null");
+    }
+    this.easing = easing;
+  }
+
+  /**
+   * Returns the maximum update rate of this animation.
+   *
+   * @return the rate in updates per second, or 0 if unlimited
+   */
+  public double getMaxFrameRate() {
+    return maxFrameRate;
+  }
+
+  /**
+   * Set the maximum update rate of this animation. {@link #onUpdate(double)} is then skipped on the
+   * frames arriving before the next update is due, and the animation does not request frames from
+   * its scheduler meanwhile, if the scheduler supports it. The updates stay on a grid anchored at
+   * the start time, so the animation still completes on time.
+   *
+   * <p>This is useful for animations that do not need the refresh rate of the display, e.g. a
+   * progress indicator updated at 20 updates per second, especially on 120 Hz or 144 Hz displays.
+   *
+   * @param maxFrameRate the rate in updates per second, or 0 for unlimited
+   * @see #setGlobalMaxFrameRate(double)
+   */
+  public void setMaxFrameRate(double maxFrameRate) {
+    if (!(maxFrameRate >= 0)) {
+      throw new IllegalArgumentException("maxFrameRate must not be negative: " + maxFrameRate);
+    }
+    this.maxFrameRate = maxFrameRate;
+  }
+
+  /**
+   * Returns the maximum update rate of all the animations.
+   *
+   * @return the rate in updates per second, or 0 if unlimited
+   */
+  public static double getGlobalMaxFrameRate() {
+    return globalMaxFrameRate;
+  }
+
+  /**
+   * Set the maximum update rate of all the animations, e.g. to save power. Each animation is
+   * updated at the lowest of this rate and its own {@link #setMaxFrameRate(double) maximum rate}.
+   *
+   * @param maxFrameRate the rate in updates per second, or 0 for unlimited
+   */
+  public static void setGlobalMaxFrameRate(double maxFrameRate) {
+    if (!(maxFrameRate >= 0)) {
+      throw new IllegalArgumentException("maxFrameRate must not be negative: " + maxFrameRate);
+    }
+    globalMaxFrameRate = maxFrameRate;
+  }
+
+  /**
+   * Returns true if {@link #onUpdate(double)} is skipped while the element of the animation is
+   * outside the viewport.
+   *
+   * @return true if the offscreen updates are skipped, false by default
+   */
+  public boolean isSkipOffscreenUpdates() {
+    return skipOffscreenUpdates;
+  }
+
+  /**
+   * Set whether {@link #onUpdate(double)} is skipped while the element passed to {@link #run(int,
+   * Element)} is outside the viewport, as reported by a shared {@code IntersectionObserver}. The
+   * animation keeps advancing meanwhile, and is updated with its current progress in the first
+   * frame after the element enters the viewport again. {@link #onStart()} and {@link #onComplete()}
+   * are always called.
+   *
+   * <p>The setting applies from the next run. It has no effect for animations run without an
+   * element, or if the browser does not support {@code IntersectionObserver}.
+   *
+   * @param skipOffscreenUpdates true to skip the offscreen updates
+   */
+  public void setSkipOffscreenUpdates(boolean skipOffscreenUpdates) {
+    this.skipOffscreenUpdates = skipOffscreenUpdates;
+  }
+
+  /**
+   * Returns true if the animation is canceled once its element is detached from the document.
+   *
+   * @return true if the animation is canceled once detached, false by default
+   */
+  public boolean isCancelWhenDetached() {
+    return cancelWhenDetached;
+  }
+
+  /**
+   * Set whether the animation is canceled, in the first frame after the element passed to {@link
+   * #run(int, Element)} is removed from the document, rather than running its full duration on a
+   * node that nobody can see. The element is checked in the frames following the start of the
+   * animation, so it may still be attached after {@link #run(int, Element)} is called.
+   *
+   * <p>It has no effect for animations run without an element.
+   *
+   * @param cancelWhenDetached true to cancel the animation once its element is detached
+   * @see #getDetachedCancelCount()
+   */
+  public void setCancelWhenDetached(boolean cancelWhenDetached) {
+    this.cancelWhenDetached = cancelWhenDetached;
+  }
+
+  /**
+   * Returns the number of runs canceled because their element was detached from the document, see
+   * {@link #setCancelWhenDetached(boolean)}. A growing count may reveal views which remove their
+   * elements without canceling their animations.
+   *
+   * @return the number of runs canceled since the page was loaded
+   */
+  public static int getDetachedCancelCount() {
+    return detachedCancelCount;
+  }
+
+  /**
+   * Returns true if the element is attached to its document.
+   *
+   * @param element the element
+   * @return true if attached, false if detached
+   */
+  private static boolean isConnected(Element element) {
+    if (Js.asPropertyMap(element).has("isConnected")) {
+      return Js.isTruthy(Js.asPropertyMap(element).get("isConnected"));
+    }
+    Document document = element.getOwnerDocument();
+    return document != null && document.getDocumentElement().isOrHasChild(element);
+  }
+
+  /**
+   * Returns true if the runs are deferred to the next frame.
+   *
+   * @return true if the runs are deferred, false by default
+   */
+  public boolean isDeferredStart() {
+    return deferredStart;
+  }
+
+  /**
+   * Set whether {@link #run(int, double, Element)} defers the run to the next frame. The previous
+   * run is then canceled, and the new one started, at the beginning of that frame, and the runs
+   * requested before it are coalesced: only the last one is started, and {@link #onCancel()} and
+   * {@link #onStart()} are called once. The animation is running meanwhile.
+   *
+   * <p>This is useful for animations run from frequent events, such as {@code mousemove} or {@code
+   * scroll}, which may fire many times per frame.
+   *
+   * @param deferredStart true to defer the runs to the next frame
+   */
+  public void setDeferredStart(boolean deferredStart) {
+    this.deferredStart = deferredStart;
+  }
+
+  /**
+   * Called by the {@link OffscreenTracker} when the element of the current run enters or leaves the
+   * viewport.
+   *
+   * @param offscreen true if the element is outside the viewport
+   */
+  void setOffscreen(boolean offscreen) {
+    isOffscreen = offscreen;
   }
 
   /**
@@ -222,16 +672,50 @@ public abstract class Animation {
    * @return true if the animation is running
    */
   public boolean isRunning() {
-    return isRunning;
+    return isRunning || (pendingStart != null && pendingStart.isPending());
   }
 
   /**
-   * Update the {@link Animation}.
+   * Returns the telemetry of the current or last run of this animation, recorded while {@link
+   * AnimationTelemetry#isEnabled()}. The expected frames are computed from the duration of the run.
+   *
+   * @return a snapshot of the telemetry, or null if none was ever recorded
+   */
+  public AnimationTelemetry.Snapshot getTelemetry() {
+    if (telemetry == null) {
+      return null;
+    }
+    return telemetry.snapshot(duration / getExpectedInterval());
+  }
+
+  /**
+   * Update the {@link Animation}, recording the telemetry if enabled.
    *
    * @param curTime the current time
    * @return true if the animation should run again, false if it is complete
    */
   private boolean update(double curTime) {
+    if (!AnimationTelemetry.enabled || curTime < startTime || curTime < nextUpdateTime) {
+      return doUpdate(curTime);
+    }
+    if (telemetry == null) {
+      telemetry = new AnimationTelemetry.Recorder();
+    }
+    double begin = scheduler.currentTimeMillis();
+    boolean result = doUpdate(curTime);
+    double updateMillis = scheduler.currentTimeMillis() - begin;
+    double interval = telemetry.record(curTime, updateMillis, getExpectedInterval());
+    AnimationTelemetry.fireUpdate(this, updateMillis, interval);
+    return result;
+  }
+
+  /**
+   * Update the {@link Animation}.
+   *
+   * @param curTime the current time
+   * @return true if the animation should run again, false if it is complete
+   */
+  private boolean doUpdate(double curTime) {
     /*
      * Save the run id. If the runId is incremented during this execution block,
      * we know that this run has been canceled.
@@ -241,8 +725,24 @@ public abstract class Animation {
     boolean finished = curTime >= startTime + duration;
     if (isStarted && !finished) {
       // Animation is in progress.
-      double progress = (curTime - startTime) / duration;
-      onUpdate(interpolate(progress));
+      if (curTime < nextUpdateTime) {
+        // Too early for the maximum update rate.
+        return true;
+      }
+      scheduleNextUpdate(curTime);
+      if (isOffscreen) {
+        // The clock advances, but nobody can see the element.
+        return true;
+      }
+      double progress = interpolate((curTime - startTime) / duration);
+      setPhaseProgress(progress);
+      if (AnimationTracing.enabled) {
+        double begin = scheduler.currentTimeMillis();
+        onUpdate(progress);
+        AnimationTracing.record(this, "onUpdate", begin, scheduler.currentTimeMillis() - begin);
+      } else {
+        onUpdate(progress);
+      }
       return isRunning(curRunId); // Check if this run was canceled.
     }
     if (!isStarted && curTime >= startTime) {
@@ -251,6 +751,9 @@ public abstract class Animation {
        * onUpdate() by default.
        */
       isStarted = true;
+      scheduleNextUpdate(curTime);
+      setPhaseProgress(interpolate(0.0));
+      trace("onStart");
       onStart();
       if (!isRunning(curRunId)) {
         // This run was canceled.
@@ -262,12 +765,58 @@ public abstract class Animation {
       // Animation is complete.
       isRunning = false;
       isStarted = false;
+      untrack();
+      setPhaseProgress(interpolate(1.0));
+      trace("onComplete");
       onComplete();
       return false;
     }
     return true;
   }
 
+  /**
+   * Compute the time of the next update allowed by the maximum update rate. The updates are due on
+   * a grid of ticks anchored at the start time, so that skipping frames does not drift the
+   * animation, and frames arriving up to a quarter of the interval before a tick are accepted for
+   * it.
+   *
+   * @param curTime the time of the current update
+   */
+  private void scheduleNextUpdate(double curTime) {
+    double interval = getUpdateInterval();
+    if (interval == 0) {
+      nextUpdateTime = Double.NEGATIVE_INFINITY;
+      return;
+    }
+    double slack = interval / 4;
+    double tick = Math.floor((curTime - startTime + slack) / interval) + 1;
+    nextUpdateTime = Math.min(startTime + tick * interval - slack, startTime + duration);
+  }
+
+  /**
+   * Returns the expected interval between two updates, used by the telemetry: the interval between
+   * two frames, or the minimum interval between two updates if the animation is throttled.
+   *
+   * @return the interval in milliseconds
+   */
+  private double getExpectedInterval() {
+    return Math.max(AnimationTelemetry.getFrameInterval(), getUpdateInterval());
+  }
+
+  /**
+   * Returns the minimum interval between two updates, from the maximum update rates of this
+   * animation and of all the animations.
+   *
+   * @return the interval in milliseconds, or 0 if unlimited
+   */
+  private double getUpdateInterval() {
+    double rate = maxFrameRate;
+    if (globalMaxFrameRate > 0 && (rate == 0 || globalMaxFrameRate < rate)) {
+      rate = globalMaxFrameRate;
+    }
+    return rate == 0 ? 0 : 1000 / rate;
+  }
+
   /**
    * Check if the specified run ID is still being run.
    *
@@ -278,8 +827,145 @@ public abstract class Animation {
     return isRunning && (runId == curRunId);
   }
 
+  /**
+   * Called in the measure phase of a frame, once all the animations of the frame have been updated
+   * and before any of them mutates the DOM, if the scheduler supports phases. The default
+   * implementation does nothing.
+   *
+   * <p>Together with {@link #onMutate(double)}, this lets animations read the layout, e.g. the size
+   * of an element, without forcing a layout per animation: read in {@code onMeasure} and write in
+   * {@code onMutate} rather than both in {@link #onUpdate(double)}.
+   *
+   * @param progress the progress of the frame, as passed to {@link #onUpdate(double)}
+   * @see AnimationScheduler#requestFramePhases(FramePhases)
+   */
+  protected void onMeasure(double progress) {}
+
+  /**
+   * Called in the mutate phase of a frame, once all the animations of the frame have run their
+   * {@link #onMeasure(double)} phase. The default implementation does nothing.
+   *
+   * @param progress the progress of the frame, as passed to {@link #onUpdate(double)}
+   */
+  protected void onMutate(double progress) {}
+
+  /** Mark the phases of the current frame as pending with the specified progress. */
+  private void setPhaseProgress(double progress) {
+    phaseProgress = progress;
+    hasPendingPhases = true;
+  }
+
+  /** Request the pending phases of the current frame from the scheduler. */
+  private void requestPhases() {
+    if (hasPendingPhases) {
+      scheduler.requestFramePhases(callback);
+    }
+  }
+
   /** Called immediately before the animation starts. */
   protected void onStart() {
     onUpdate(interpolate(0.0));
   }
+
+  /** A run deferred to the next frame, whose arguments are replaced by the next deferred runs. */
+  private final class PendingStart implements AnimationCallback {
+    int duration;
+    double startTime;
+    Element element;
+    private AnimationHandle handle;
+
+    /** Replace the arguments of the deferred run, and request a frame to start it if needed. */
+    void request(int duration, double startTime, Element element) {
+      this.duration = duration;
+      this.startTime = startTime;
+      this.element = element;
+      if (handle == null) {
+        handle = scheduler.requestAnimationFrame(this, element);
+      }
+    }
+
+    boolean isPending() {
+      return handle != null;
+    }
+
+    void cancel() {
+      if (handle != null) {
+        handle.cancel();
+        handle = null;
+      }
+    }
+
+    @Override
+    public void execute(double timestamp) {
+      handle = null;
+      start(duration, startTime, element);
+      element = null;
+      callback.execute(timestamp);
+    }
+
+    @Override
+    public boolean isDeferrable() {
+      // The run is started at the time of the frame.
+      return true;
+    }
+  }
+
+  /**
+   * The callback of an {@link Animation}, which a scheduler may also complete directly, and its
+   * phases.
+   */
+  final class FrameCallback implements AnimationCallback, FramePhases {
+
+    @Override
+    public void execute(double timestamp) {
+      // The request has been fulfilled.
+      requestHandle = null;
+      if (cancelWhenDetached && isStarted && element != null && !isConnected(element)) {
+        // Nobody can see the animation anymore.
+        detachedCancelCount++;
+        cancel();
+        return;
+      }
+      boolean runAgain = update(timestamp);
+      requestPhases();
+      if (runAgain && requestHandle == null) {
+        // Schedule the next animation frame.
+        if (isStarted && nextUpdateTime <= timestamp) {
+          requestHandle = scheduler.requestAnimationFrame(callback, element);
+        } else if (isStarted) {
+          // Do not consume frames until the next update is due.
+          requestHandle = scheduler.requestAnimationFrameAt(callback, element, nextUpdateTime);
+        } else {
+          // Do not consume frames until the animation starts.
+          requestHandle = scheduler.requestAnimationFrameAt(callback, element, startTime);
+        }
+      }
+    }
+
+    @Override
+    public boolean isDeferrable() {
+      // The progress is computed from the timestamp.
+      return true;
+    }
+
+    @Override
+    public void measure() {
+      if (hasPendingPhases) {
+        onMeasure(phaseProgress);
+      }
+    }
+
+    @Override
+    public void mutate() {
+      if (hasPendingPhases) {
+        hasPendingPhases = false;
+        onMutate(phaseProgress);
+      }
+    }
+
+    /** Complete the animation, as {@link Animation#complete()}. */
+    void complete() {
+      Animation.this.complete();
+    }
+  }
 }
@@ -0,0 +1,193 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.gwtproject.dom.client.Element;
+
+/**
+ * A registry of the running animations, to diagnose the number of animations driving the frame
+ * times up.
+ *
+ * <p>Once enabled through {@link #setEnabled(boolean)}, every {@link Animation} is registered when
+ * it starts running and unregistered when it completes or is canceled. Both cost constant time, and
+ * nothing is done in the frames. The registry can be inspected through {@link #getActiveCount()},
+ * {@link #getHighWaterMark()} and {@link #getActiveAnimations()}.
+ */
+public final class AnimationRegistry {
+
+  /** Is the registry tracking the animations. */
+  static boolean enabled = false;
+
+  /** The running animations, each knowing its index in the list. */
+  private static final List<Animation> animations = new ArrayList<>();
+
+  private static int highWaterMark = 0;
+
+  private AnimationRegistry() {}
+
+  /**
+   * Returns true if the running animations are tracked.
+   *
+   * @return true if enabled, false by default
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Set whether the running animations are tracked. Animations already running are only tracked
+   * from their next run; disabling the registry forgets all the animations.
+   *
+   * @param enabled true to track the running animations
+   */
+  public static void setEnabled(boolean enabled) {
+    if (!enabled) {
+      for (int i = 0; i < animations.size(); i++) {
+        animations.get(i).registryIndex = -1;
+      }
+      animations.clear();
+    }
+    AnimationRegistry.enabled = enabled;
+  }
+
+  /**
+   * Returns the number of running animations.
+   *
+   * @return the number of animations
+   */
+  public static int getActiveCount() {
+    return animations.size();
+  }
+
+  /**
+   * Returns the highest number of animations running at the same time, since the registry was
+   * enabled or the mark was reset.
+   *
+   * @return the number of animations
+   */
+  public static int getHighWaterMark() {
+    return highWaterMark;
+  }
+
+  /** Reset the high-water mark to the number of running animations. */
+  public static void resetHighWaterMark() {
+    highWaterMark = animations.size();
+  }
+
+  /**
+   * Returns the running animations, in no particular order.
+   *
+   * @return a snapshot of the running animations
+   */
+  public static List<Entry> getActiveAnimations() {
+    List<Entry> entries = new ArrayList<>(animations.size());
+    for (int i = 0; i < animations.size(); i++) {
+      entries.add(animations.get(i).toRegistryEntry());
+    }
+    return entries;
+  }
+
+  /** Register an animation which started running. */
+  static void add(Animation animation) {
+    if (animation.registryIndex >= 0) {
+      return;
+    }
+    animation.registryIndex = animations.size();
+    animations.add(animation);
+    highWaterMark = Math.max(highWaterMark, animations.size());
+  }
+
+  /** Unregister an animation which stopped running, by moving the last animation in its place. */
+  static void remove(Animation animation) {
+    int index = animation.registryIndex;
+    if (index < 0) {
+      return;
+    }
+    animation.registryIndex = -1;
+    Animation last = animations.remove(animations.size() - 1);
+    if (last != animation) {
+      last.registryIndex = index;
+      animations.set(index, last);
+    }
+  }
+
+  /** An immutable view of a running animation. */
+  public static final class Entry {
+    private final Animation animation;
+    private final double elapsedMillis;
+    private final double remainingMillis;
+    private final Element element;
+
+    Entry(Animation animation, double elapsedMillis, double remainingMillis, Element element) {
+      this.animation = animation;
+      this.elapsedMillis = elapsedMillis;
+      this.remainingMillis = remainingMillis;
+      this.element = element;
+    }
+
+    /**
+     * Returns the animation.
+     *
+     * @return the animation
+     */
+    public Animation getAnimation() {
+      return animation;
+    }
+
+    /**
+     * Returns the name of the class of the animation, which may be obfuscated in production.
+     *
+     * @return the class name
+     */
+    public String getClassName() {
+      return animation.getClass().getName();
+    }
+
+    /**
+     * Returns the time elapsed since the start of the run, when the snapshot was taken.
+     *
+     * @return the time in milliseconds, negative if the run has not started yet
+     */
+    public double getElapsedMillis() {
+      return elapsedMillis;
+    }
+
+    /**
+     * Returns the time remaining until the end of the run, when the snapshot was taken.
+     *
+     * @return the time in milliseconds
+     */
+    public double getRemainingMillis() {
+      return remainingMillis;
+    }
+
+    /**
+     * Returns the element passed to {@link Animation#run(int, Element)}.
+     *
+     * @return the element, or null if none
+     */
+    public Element getElement() {
+      return element;
+    }
+
+    @Override
+    public String toString() {
+      return getClassName() + " " + elapsedMillis + "/" + (elapsedMillis + remainingMillis) + " ms";
+    }
+  }
+}
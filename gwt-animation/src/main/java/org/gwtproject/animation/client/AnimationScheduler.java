@@ -15,6 +15,9 @@
  */
 package org.gwtproject.animation.client;
 
+import jsinterop.base.Js;
+import org.gwtproject.core.client.Duration;
+import org.gwtproject.core.shared.GwtIncompatible;
 import org.gwtproject.dom.client.Element;
 
 /**
@@ -25,20 +28,95 @@ import org.gwtproject.dom.client.Element;
  */
 public abstract class AnimationScheduler {
 
+  /**
+   * Whether the built-in schedulers recycle the handle of a callback that requests its next frame
+   * while it is executing, instead of allocating a new handle and native wrapper for every frame.
+   * Enabled by setting the {@code gwt.animation.recycleHandles} system property to {@code true}.
+   *
+   * @see AnimationHandle
+   */
+  static final boolean RECYCLE_HANDLES =
+      "true".equals(System.getProperty("gwt.animation.recycleHandles", "false"));
+
+  /**
+   * The frame interval of the schedulers not driven by {@code requestAnimationFrame}, in
+   * milliseconds. Set by the {@code gwt.animation.frameInterval} system property, 60 Hz by default.
+   */
+  static final double FRAME_INTERVAL =
+      Double.parseDouble(System.getProperty("gwt.animation.frameInterval", "16.666666666666668"));
+
   private static AnimationScheduler instance;
 
   /**
    * Returns the default implementation of the AnimationScheduler API.
    *
+   * <p>By default, this is a {@link CoalescingAnimationScheduler} that drives all the callbacks
+   * from a single {@code requestAnimationFrame} per frame. Setting the {@code
+   * gwt.animation.scheduler} system property to {@code standard} selects the implementation
+   * requesting one frame per callback instead. Where {@code requestAnimationFrame} is missing, as
+   * in Web Workers, this is a {@link CoalescingAnimationScheduler} driven by a timer at a fixed
+   * frame interval, set by the {@code gwt.animation.frameInterval} system property in milliseconds
+   * and 60 Hz by default.
+   *
+   * <p>On the JVM, this is a scheduler executing the callbacks at the same fixed frame interval, on
+   * the thread set by {@link #setJreExecutor} or on its own ticker thread.
+   *
    * @return the default implementation of the AnimationScheduler API.
    */
   public static AnimationScheduler get() {
     if (instance == null) {
-      instance = new AnimationSchedulerImplStandard();
+      instance = new JreFactory().create();
     }
     return instance;
   }
 
+  /**
+   * Set the executor of the callbacks of the default scheduler on the JVM, e.g. {@code
+   * SwingUtilities::invokeLater}. The animations are not thread-safe: they must only be run,
+   * canceled and completed on the thread executing the callbacks, which is the ticker thread of the
+   * scheduler if no executor is set.
+   *
+   * @param executor the executor, or null to execute the callbacks on the ticker thread
+   */
+  @GwtIncompatible
+  public static void setJreExecutor(java.util.concurrent.Executor executor) {
+    AnimationSchedulerImplJre.executor = executor;
+  }
+
+  /** Creates the implementation for the browser. */
+  private static class Factory {
+    AnimationScheduler create() {
+      if (!Js.global().has("requestAnimationFrame")) {
+        return new AnimationSchedulerImplTimer();
+      }
+      if ("standard".equals(System.getProperty("gwt.animation.scheduler", "coalescing"))) {
+        return new AnimationSchedulerImplStandard();
+      }
+      return new AnimationSchedulerImplCoalescing();
+    }
+  }
+
+  /** Creates the implementation for the JVM, compiled out of the browser builds. */
+  private static class JreFactory extends Factory {
+    @GwtIncompatible
+    @Override
+    AnimationScheduler create() {
+      return new AnimationSchedulerImplJre();
+    }
+  }
+
+  /**
+   * Returns the current time, in the same timebase as the timestamps passed to the {@link
+   * AnimationCallback}s. {@link Animation} uses it to compute its start time.
+   *
+   * <p>The default implementation returns {@link Duration#currentTimeMillis()}.
+   *
+   * @return the current time in milliseconds
+   */
+  public double currentTimeMillis() {
+    return Duration.currentTimeMillis();
+  }
+
   /**
    * Schedule an animation, letting the browser decide when to trigger the next step in the
    * animation.
@@ -75,6 +153,40 @@ public abstract class AnimationScheduler {
   public abstract AnimationHandle requestAnimationFrame(
       AnimationCallback callback, Element element);
 
+  /**
+   * Schedule an animation frame that is not needed before the specified time, letting the scheduler
+   * wait without consuming frames until shortly before that time.
+   *
+   * <p>The callback may still be called before the specified time, and must handle it. The default
+   * implementation requests the next frame.
+   *
+   * @param callback the callback to fire
+   * @param element the element being animated
+   * @param time the time before which the frame is not needed, in the timebase of {@link
+   *     #currentTimeMillis()}
+   * @return a handle to the requested animation frame
+   */
+  public AnimationHandle requestAnimationFrameAt(
+      AnimationCallback callback, Element element, double time) {
+    return requestAnimationFrame(callback, element);
+  }
+
+  /**
+   * Run the phases of a frame: first {@link FramePhases#measure()}, then {@link
+   * FramePhases#mutate()}.
+   *
+   * <p>The default implementation runs both phases immediately. A {@link
+   * CoalescingAnimationScheduler} defers the phases requested while it dispatches a frame to the
+   * end of the frame, where all the measures run before any mutate, so that the layout is computed
+   * once per frame rather than once per animation.
+   *
+   * @param phases the phases to run
+   */
+  public void requestFramePhases(FramePhases phases) {
+    phases.measure();
+    phases.mutate();
+  }
+
   /** The callback used when an animation frame becomes available. */
   public interface AnimationCallback {
     /**
@@ -83,11 +195,43 @@ public abstract class AnimationScheduler {
      * @param timestamp the current timestamp
      */
     void execute(double timestamp);
+
+    /**
+     * Returns true if the callback may be deferred to a later frame when the current frame runs out
+     * of time, as {@link CoalescingAnimationScheduler#setFrameBudget(double)} allows. This is the
+     * case of callbacks computing their state from the timestamp rather than from the number of
+     * frames.
+     *
+     * <p>The default implementation returns false.
+     *
+     * @return true if the callback may be deferred
+     */
+    default boolean isDeferrable() {
+      return false;
+    }
+  }
+
+  /**
+   * The work of a frame split into a phase reading the layout and a phase writing it, run through
+   * {@link #requestFramePhases(FramePhases)}.
+   */
+  public interface FramePhases {
+    /** Read the layout, without modifying the DOM. */
+    void measure();
+
+    /** Modify the DOM, without reading the layout. */
+    void mutate();
   }
 
   /**
    * A handle to the requested animation frame created by {@link
    * #requestAnimationFrame(AnimationCallback, Element)}.
+   *
+   * <p>When the {@code gwt.animation.recycleHandles} system property is set to {@code true}, the
+   * built-in schedulers return the same handle when a callback requests its next frame while it is
+   * executing, so that a running animation does not allocate anything per frame. In this mode, a
+   * handle must not be canceled once its callback has started executing, as it may already stand
+   * for the next frame.
    */
   public abstract static class AnimationHandle {
     /**
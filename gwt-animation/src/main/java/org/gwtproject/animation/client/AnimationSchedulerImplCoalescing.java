@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import elemental2.dom.DomGlobal;
+import elemental2.dom.FrameRequestCallback;
+import org.gwtproject.timer.client.Timer;
+
+/**
+ * {@link CoalescingAnimationScheduler} implementation that drives all the callbacks from a single
+ * standard {@code requestAnimationFrame} call per frame.
+ */
+class AnimationSchedulerImplCoalescing extends CoalescingAnimationScheduler {
+
+  private final FrameRequestCallback frameCallback =
+      p0 -> dispatchFrame(FrameClock.toTimestamp(p0));
+
+  private final Timer wakeUpTimer =
+      new Timer() {
+        @Override
+        public void run() {
+          wakeUp();
+        }
+      };
+
+  /** The ID of the pending native animation frame request. */
+  private int frameId;
+
+  /** Is the visibility of the document observed. */
+  private boolean isObservingVisibility = false;
+
+  @Override
+  public void setHiddenPolicy(HiddenPolicy hiddenPolicy) {
+    super.setHiddenPolicy(hiddenPolicy);
+    if (hiddenPolicy != HiddenPolicy.RUN && !isObservingVisibility) {
+      isObservingVisibility = true;
+      DomGlobal.document.addEventListener(
+          "visibilitychange", event -> setHidden(DomGlobal.document.hidden));
+      setHidden(DomGlobal.document.hidden);
+    }
+  }
+
+  @Override
+  protected double now() {
+    return FrameClock.now();
+  }
+
+  @Override
+  protected void scheduleFrame() {
+    frameId = DomGlobal.requestAnimationFrame(frameCallback);
+  }
+
+  @Override
+  protected void cancelFrame() {
+    DomGlobal.cancelAnimationFrame(frameId);
+  }
+
+  @Override
+  protected void scheduleWakeUp(double delayMillis) {
+    wakeUpTimer.schedule((int) Math.ceil(delayMillis));
+  }
+
+  @Override
+  protected void cancelWakeUp() {
+    wakeUpTimer.cancel();
+  }
+}
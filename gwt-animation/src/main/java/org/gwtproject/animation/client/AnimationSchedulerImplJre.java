@@ -0,0 +1,211 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.LockSupport;
+import org.gwtproject.core.shared.GwtIncompatible;
+import org.gwtproject.dom.client.Element;
+
+/**
+ * {@link AnimationScheduler} implementation for the JVM, used when not running in a browser.
+ *
+ * <p>A single daemon ticker thread lays the frames at a fixed frame interval, set by the {@code
+ * gwt.animation.frameInterval} system property in milliseconds and 60 Hz by default. The frames are
+ * laid on an absolute timeline measured with {@link System#nanoTime()}, so that the interval does
+ * not drift when the callbacks take time. The ticker waits without consuming frames while no
+ * callback is requested, and while the previous frame is executing.
+ *
+ * <p>The callbacks of a frame are executed by the {@link #executor} if set, e.g. the event dispatch
+ * thread of the application, and on the ticker thread otherwise. The animations are not
+ * thread-safe: they must only be run, canceled and completed on the thread executing the callbacks.
+ * The exceptions thrown by the callbacks are passed to the uncaught exception handler of that
+ * thread, and do not prevent the other callbacks of the frame from executing.
+ */
+@GwtIncompatible
+class AnimationSchedulerImplJre extends AnimationScheduler {
+
+  /** The executor of the callbacks, or null to execute them on the ticker thread. */
+  static volatile Executor executor;
+
+  private final long frameIntervalNanos;
+
+  /** The origin of the timeline, in nanoseconds and in epoch milliseconds. */
+  private final long originNanos = System.nanoTime();
+
+  private final double originMillis = System.currentTimeMillis();
+
+  /**
+   * The handles requested for the next frame, guarded by this scheduler. The canceled handles are
+   * only dropped when the frame executes.
+   */
+  private List<JreHandle> pending = new ArrayList<>();
+
+  /** The number of pending handles not canceled, guarded by this scheduler. */
+  private int pendingCount = 0;
+
+  /** The handles of the frame being executed, guarded by {@link #isExecuting}. */
+  private List<JreHandle> executing = new ArrayList<>();
+
+  /** Is a frame executing, guarded by this scheduler. */
+  private boolean isExecuting = false;
+
+  private Thread ticker;
+
+  AnimationSchedulerImplJre() {
+    this(FRAME_INTERVAL);
+  }
+
+  /**
+   * Construct a scheduler.
+   *
+   * @param frameIntervalMillis the interval between two frames, in milliseconds
+   */
+  AnimationSchedulerImplJre(double frameIntervalMillis) {
+    if (!(frameIntervalMillis > 0)) {
+      throw new IllegalArgumentException(
+          "frameIntervalMillis must be positive: " + frameIntervalMillis);
+    }
+    frameIntervalNanos = Math.max(1, Math.round(frameIntervalMillis * 1e6));
+  }
+
+  @Override
+  public double currentTimeMillis() {
+    return toMillis(System.nanoTime());
+  }
+
+  @Override
+  public synchronized AnimationHandle requestAnimationFrame(
+      AnimationCallback callback, Element element) {
+    JreHandle handle = new JreHandle(callback);
+    pending.add(handle);
+    pendingCount++;
+    if (ticker == null) {
+      ticker = new Thread(this::tick, "gwt-animation-ticker");
+      ticker.setDaemon(true);
+      ticker.start();
+    } else if (pendingCount == 1) {
+      notifyAll();
+    }
+    return handle;
+  }
+
+  private double toMillis(long nanos) {
+    return originMillis + (nanos - originNanos) / 1e6;
+  }
+
+  /** The loop of the ticker thread. */
+  private void tick() {
+    long frame = 0;
+    while (true) {
+      synchronized (this) {
+        while (pendingCount == 0 || isExecuting) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            // The ticker lives as long as the JVM: ignore.
+          }
+        }
+      }
+
+      // Wait for the next frame on the timeline, skipping the frames missed while idle or busy.
+      long now = System.nanoTime();
+      frame = Math.max(frame + 1, (now - originNanos) / frameIntervalNanos + 1);
+      long deadline = originNanos + frame * frameIntervalNanos;
+      while ((now = System.nanoTime()) < deadline) {
+        LockSupport.parkNanos(deadline - now);
+      }
+
+      synchronized (this) {
+        List<JreHandle> handles = pending;
+        pending = executing;
+        executing = handles;
+        pendingCount = 0;
+        isExecuting = true;
+        for (int i = 0; i < handles.size(); i++) {
+          handles.get(i).isPending = false;
+        }
+      }
+      double timestamp = toMillis(deadline);
+      Executor executor = AnimationSchedulerImplJre.executor;
+      if (executor == null) {
+        executeFrame(timestamp);
+      } else {
+        executor.execute(() -> executeFrame(timestamp));
+      }
+    }
+  }
+
+  /** Execute the callbacks of the frame, then let the ticker lay the next one. */
+  private void executeFrame(double timestamp) {
+    try {
+      for (int i = 0; i < executing.size(); i++) {
+        executing.get(i).execute(timestamp);
+      }
+    } finally {
+      executing.clear();
+      synchronized (this) {
+        isExecuting = false;
+        notifyAll();
+      }
+    }
+  }
+
+  /** A handle to a callback requested for the next frame. */
+  private class JreHandle extends AnimationHandle {
+    private final AnimationCallback callback;
+
+    /** Is the handle canceled or executed, guarded by the scheduler. */
+    private boolean canceled;
+
+    /** Is the handle waiting for the next frame, guarded by the scheduler. */
+    private boolean isPending = true;
+
+    JreHandle(AnimationCallback callback) {
+      this.callback = callback;
+    }
+
+    @Override
+    public void cancel() {
+      synchronized (AnimationSchedulerImplJre.this) {
+        if (!canceled) {
+          canceled = true;
+          if (isPending) {
+            pendingCount--;
+          }
+        }
+      }
+    }
+
+    void execute(double timestamp) {
+      synchronized (AnimationSchedulerImplJre.this) {
+        if (canceled) {
+          return;
+        }
+        // Canceling the handle from now on does nothing.
+        canceled = true;
+      }
+      try {
+        callback.execute(timestamp);
+      } catch (Throwable e) {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+      }
+    }
+  }
+}
@@ -16,8 +16,8 @@
 package org.gwtproject.animation.client;
 
 import elemental2.dom.DomGlobal;
+import elemental2.dom.FrameRequestCallback;
 import jsinterop.base.Js;
-import org.gwtproject.core.client.Duration;
 import org.gwtproject.dom.client.Element;
 
 /**
@@ -25,23 +25,63 @@ import org.gwtproject.dom.client.Element;
  */
 class AnimationSchedulerImplStandard extends AnimationScheduler {
 
+  /** The handle whose callback is currently executing, if it may be recycled. */
+  private StandardHandle executing;
+
+  @Override
+  public double currentTimeMillis() {
+    return FrameClock.now();
+  }
+
   @Override
   public AnimationHandle requestAnimationFrame(AnimationCallback callback, Element element) {
-    final int id = requestImplNew(callback, element);
-    return new AnimationHandle() {
-      @Override
-      public void cancel() {
-        cancelImpl(id);
-      }
-    };
+    StandardHandle handle;
+    if (executing != null && executing.callback == callback) {
+      // The callback requests its next frame: reuse its handle and native wrapper.
+      handle = executing;
+      executing = null;
+    } else {
+      handle = new StandardHandle(callback);
+    }
+    handle.id = requestImplNew(handle.frameCallback, element);
+    return handle;
   }
 
-  private static int requestImplNew(AnimationCallback cb, Element element) {
-    return DomGlobal.requestAnimationFrame(
-        p0 -> cb.execute(Duration.currentTimeMillis()), Js.cast(element));
+  private static int requestImplNew(FrameRequestCallback cb, Element element) {
+    return DomGlobal.requestAnimationFrame(cb, Js.cast(element));
   }
 
   private static void cancelImpl(int id) {
     DomGlobal.cancelAnimationFrame(id);
   }
+
+  /** A handle holding a stable native wrapper of its callback. */
+  private class StandardHandle extends AnimationHandle {
+
+    private final AnimationCallback callback;
+    private final FrameRequestCallback frameCallback = this::execute;
+
+    /** The ID of the pending native animation frame request. */
+    private int id;
+
+    StandardHandle(AnimationCallback callback) {
+      this.callback = callback;
+    }
+
+    @Override
+    public void cancel() {
+      cancelImpl(id);
+    }
+
+    private void execute(double frameTime) {
+      if (RECYCLE_HANDLES) {
+        executing = this;
+      }
+      try {
+        callback.execute(FrameClock.toTimestamp(frameTime));
+      } finally {
+        executing = null;
+      }
+    }
+  }
 }
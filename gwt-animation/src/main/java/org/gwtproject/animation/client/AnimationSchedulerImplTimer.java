@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import org.gwtproject.core.client.Duration;
+import org.gwtproject.timer.client.Timer;
+
+/**
+ * {@link CoalescingAnimationScheduler} implementation that drives all the callbacks from a single
+ * {@link Timer}, for the environments without {@code requestAnimationFrame} such as Web Workers.
+ *
+ * <p>The frames are laid on an absolute timeline at a fixed frame interval, set by the {@code
+ * gwt.animation.frameInterval} system property in milliseconds and 60 Hz by default: each timeout
+ * is computed against the timeline rather than chained after the previous frame, so that the delays
+ * of the timers do not accumulate.
+ */
+class AnimationSchedulerImplTimer extends CoalescingAnimationScheduler {
+
+  private final double frameInterval;
+
+  /** The time of the first frame, from which the timeline is laid. */
+  private double origin = Double.NaN;
+
+  /** The time of the frame scheduled, on the timeline. */
+  private double frameTime = Double.NaN;
+
+  /** The time of the last frame dispatched, on the timeline. */
+  private double lastFrameTime = Double.NaN;
+
+  private final Timer frameTimer =
+      new Timer() {
+        @Override
+        public void run() {
+          lastFrameTime = frameTime;
+          dispatchFrame(now());
+        }
+      };
+
+  private final Timer wakeUpTimer =
+      new Timer() {
+        @Override
+        public void run() {
+          wakeUp();
+        }
+      };
+
+  AnimationSchedulerImplTimer() {
+    this(FRAME_INTERVAL);
+  }
+
+  /**
+   * Construct a scheduler.
+   *
+   * @param frameInterval the interval between two frames, in milliseconds
+   */
+  AnimationSchedulerImplTimer(double frameInterval) {
+    if (!(frameInterval > 0)) {
+      throw new IllegalArgumentException("frameInterval must be positive: " + frameInterval);
+    }
+    this.frameInterval = frameInterval;
+  }
+
+  @Override
+  protected double now() {
+    return Duration.currentTimeMillis();
+  }
+
+  @Override
+  protected void scheduleFrame() {
+    double now = now();
+    if (Double.isNaN(origin)) {
+      origin = now;
+    }
+    // The next frame on the timeline, skipping the frames missed while idle or busy.
+    frameTime = origin + Math.ceil((now - origin) / frameInterval) * frameInterval;
+    if (frameTime <= lastFrameTime) {
+      frameTime = lastFrameTime + frameInterval;
+    }
+    frameTimer.schedule((int) Math.ceil(frameTime - now));
+  }
+
+  @Override
+  protected void cancelFrame() {
+    frameTimer.cancel();
+  }
+
+  @Override
+  protected void scheduleWakeUp(double delayMillis) {
+    wakeUpTimer.schedule((int) Math.ceil(delayMillis));
+  }
+
+  @Override
+  protected void cancelWakeUp() {
+    wakeUpTimer.cancel();
+  }
+}
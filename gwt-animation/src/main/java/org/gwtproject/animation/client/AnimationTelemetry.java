@@ -0,0 +1,353 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Frame telemetry of the animations and schedulers.
+ *
+ * <p>Once enabled through {@link #setEnabled(boolean)}, every {@link Animation} records the
+ * duration of its updates, measured with {@link AnimationScheduler#currentTimeMillis()}, and the
+ * interval between them. Each {@link CoalescingAnimationScheduler} records its frames the same way.
+ * The records are available as a {@link Snapshot} through {@link Animation#getTelemetry()} and
+ * {@link CoalescingAnimationScheduler#getTelemetry()}, and reported to the registered {@link
+ * Listener}s as they happen.
+ *
+ * <p>Recording does not allocate, and costs a single check per frame while disabled, so that the
+ * telemetry can be enabled for a sample of the production sessions.
+ */
+public final class AnimationTelemetry {
+
+  /** Receives the telemetry as it is recorded. */
+  public interface Listener {
+    /**
+     * Called after an animation has been updated.
+     *
+     * @param animation the animation
+     * @param updateMillis the duration of the update, in milliseconds
+     * @param intervalMillis the interval since the previous update, or NaN for the first one
+     */
+    void onUpdate(Animation animation, double updateMillis, double intervalMillis);
+
+    /**
+     * Called after a scheduler has run a frame. The default implementation does nothing.
+     *
+     * @param scheduler the scheduler
+     * @param frameMillis the duration of the frame, in milliseconds
+     * @param intervalMillis the interval since the previous frame, or NaN for the first one
+     */
+    default void onFrame(
+        CoalescingAnimationScheduler scheduler, double frameMillis, double intervalMillis) {}
+  }
+
+  /** Is the telemetry recorded. */
+  static boolean enabled = false;
+
+  private static double frameInterval = 1000.0 / 60;
+
+  private static double longFrameThreshold = 50;
+
+  private static final List<Listener> listeners = new ArrayList<>();
+
+  private AnimationTelemetry() {}
+
+  /**
+   * Returns true if the telemetry is recorded.
+   *
+   * @return true if enabled, false by default
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Set whether the telemetry is recorded. Animations already running start recording from their
+   * next update.
+   *
+   * @param enabled true to record the telemetry
+   */
+  public static void setEnabled(boolean enabled) {
+    AnimationTelemetry.enabled = enabled;
+  }
+
+  /**
+   * Returns the expected interval between two frames, used to count the expected and dropped
+   * frames.
+   *
+   * @return the interval in milliseconds, that of a 60 Hz display by default
+   */
+  public static double getFrameInterval() {
+    return frameInterval;
+  }
+
+  /**
+   * Set the expected interval between two frames, used to count the expected and dropped frames.
+   *
+   * @param frameInterval the interval in milliseconds
+   */
+  public static void setFrameInterval(double frameInterval) {
+    if (!(frameInterval > 0)) {
+      throw new IllegalArgumentException("frameInterval must be positive: " + frameInterval);
+    }
+    AnimationTelemetry.frameInterval = frameInterval;
+  }
+
+  /**
+   * Returns the duration over which an update or a frame is counted as long.
+   *
+   * @return the threshold in milliseconds, 50 by default
+   */
+  public static double getLongFrameThreshold() {
+    return longFrameThreshold;
+  }
+
+  /**
+   * Set the duration over which an update or a frame is counted as long.
+   *
+   * @param longFrameThreshold the threshold in milliseconds
+   */
+  public static void setLongFrameThreshold(double longFrameThreshold) {
+    if (longFrameThreshold < 0) {
+      throw new IllegalArgumentException(
+          "longFrameThreshold must not be negative: " + longFrameThreshold);
+    }
+    AnimationTelemetry.longFrameThreshold = longFrameThreshold;
+  }
+
+  /**
+   * Register a listener.
+   *
+   * @param listener the listener
+   */
+  public static void addListener(Listener listener) {
+    if (listener == null) {
+      throw new NullPointerException("listener must not be null");
+    }
+    listeners.add(listener);
+  }
+
+  /**
+   * Unregister a listener. If the listener is not registered, do nothing.
+   *
+   * @param listener the listener
+   */
+  public static void removeListener(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  /** Report an update to the listeners. */
+  static void fireUpdate(Animation animation, double updateMillis, double intervalMillis) {
+    for (int i = 0; i < listeners.size(); i++) {
+      listeners.get(i).onUpdate(animation, updateMillis, intervalMillis);
+    }
+  }
+
+  /** Report a frame to the listeners. */
+  static void fireFrame(
+      CoalescingAnimationScheduler scheduler, double frameMillis, double intervalMillis) {
+    for (int i = 0; i < listeners.size(); i++) {
+      listeners.get(i).onFrame(scheduler, frameMillis, intervalMillis);
+    }
+  }
+
+  /** An immutable view of the telemetry of an animation or a scheduler. */
+  public static final class Snapshot {
+    private final int frames;
+    private final double expectedFrames;
+    private final int droppedFrames;
+    private final int longFrames;
+    private final double totalMillis;
+    private final double maxMillis;
+    private final double maxIntervalMillis;
+
+    Snapshot(
+        int frames,
+        double expectedFrames,
+        int droppedFrames,
+        int longFrames,
+        double totalMillis,
+        double maxMillis,
+        double maxIntervalMillis) {
+      this.frames = frames;
+      this.expectedFrames = expectedFrames;
+      this.droppedFrames = droppedFrames;
+      this.longFrames = longFrames;
+      this.totalMillis = totalMillis;
+      this.maxMillis = maxMillis;
+      this.maxIntervalMillis = maxIntervalMillis;
+    }
+
+    /**
+     * Returns the number of frames rendered.
+     *
+     * @return the number of frames
+     */
+    public int getFrames() {
+      return frames;
+    }
+
+    /**
+     * Returns the number of frames expected at the {@link AnimationTelemetry#getFrameInterval()
+     * frame interval}: over the duration of an animation, or over the frames actually rendered and
+     * dropped by a scheduler.
+     *
+     * @return the number of expected frames
+     */
+    public double getExpectedFrames() {
+      return expectedFrames;
+    }
+
+    /**
+     * Returns the number of frames missed between two rendered frames.
+     *
+     * @return the number of dropped frames
+     */
+    public int getDroppedFrames() {
+      return droppedFrames;
+    }
+
+    /**
+     * Returns the number of frames over the {@link AnimationTelemetry#getLongFrameThreshold() long
+     * frame threshold}.
+     *
+     * @return the number of long frames
+     */
+    public int getLongFrames() {
+      return longFrames;
+    }
+
+    /**
+     * Returns the total duration of the frames.
+     *
+     * @return the duration in milliseconds
+     */
+    public double getTotalMillis() {
+      return totalMillis;
+    }
+
+    /**
+     * Returns the average duration of the frames.
+     *
+     * @return the duration in milliseconds, or 0 if no frame was rendered
+     */
+    public double getAverageMillis() {
+      return frames == 0 ? 0 : totalMillis / frames;
+    }
+
+    /**
+     * Returns the duration of the longest frame.
+     *
+     * @return the duration in milliseconds
+     */
+    public double getMaxMillis() {
+      return maxMillis;
+    }
+
+    /**
+     * Returns the longest interval between two frames.
+     *
+     * @return the interval in milliseconds
+     */
+    public double getMaxIntervalMillis() {
+      return maxIntervalMillis;
+    }
+
+    @Override
+    public String toString() {
+      return "frames="
+          + frames
+          + ", expectedFrames="
+          + expectedFrames
+          + ", droppedFrames="
+          + droppedFrames
+          + ", longFrames="
+          + longFrames
+          + ", totalMillis="
+          + totalMillis
+          + ", maxMillis="
+          + maxMillis
+          + ", maxIntervalMillis="
+          + maxIntervalMillis;
+    }
+  }
+
+  /** Accumulates the telemetry of an animation or a scheduler. */
+  static final class Recorder {
+    private int frames;
+    private int droppedFrames;
+    private int longFrames;
+    private double totalMillis;
+    private double maxMillis;
+    private double maxIntervalMillis;
+    private double lastTimestamp = Double.NaN;
+
+    /**
+     * Record a frame.
+     *
+     * @param timestamp the timestamp of the frame
+     * @param millis the duration of the frame
+     * @param expectedInterval the expected interval between two frames, used to count the dropped
+     *     frames
+     * @return the interval since the previous frame, or NaN for the first one
+     */
+    double record(double timestamp, double millis, double expectedInterval) {
+      double interval = timestamp - lastTimestamp;
+      lastTimestamp = timestamp;
+      frames++;
+      totalMillis += millis;
+      maxMillis = Math.max(maxMillis, millis);
+      if (millis > longFrameThreshold) {
+        longFrames++;
+      }
+      if (interval > maxIntervalMillis) {
+        maxIntervalMillis = interval;
+      }
+      if (interval > 1.5 * expectedInterval) {
+        droppedFrames += (int) Math.round(interval / expectedInterval) - 1;
+      }
+      return interval;
+    }
+
+    void reset() {
+      frames = 0;
+      droppedFrames = 0;
+      longFrames = 0;
+      totalMillis = 0;
+      maxMillis = 0;
+      maxIntervalMillis = 0;
+      lastTimestamp = Double.NaN;
+    }
+
+    /**
+     * Returns a snapshot of the records.
+     *
+     * @param expectedFrames the expected number of frames, or NaN to expect the rendered and
+     *     dropped frames
+     */
+    Snapshot snapshot(double expectedFrames) {
+      return new Snapshot(
+          frames,
+          Double.isNaN(expectedFrames) ? frames + droppedFrames : expectedFrames,
+          droppedFrames,
+          longFrames,
+          totalMillis,
+          maxMillis,
+          maxIntervalMillis);
+    }
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.gwtproject.dom.client.Element;
+
+/**
+ * An {@link Animation} that plays a group of child {@link Animation}s, in parallel, in sequence or
+ * staggered, from its own frame callback.
+ *
+ * <p>Each child is placed at an offset from the start of the timeline. On every frame, the timeline
+ * updates all its children with the same time, so a child placed right after another one starts in
+ * the frame where the previous one completes. The children do not request any frame by themselves
+ * and must not be run separately while the timeline is running.
+ *
+ * <p>The timeline progresses linearly by default. An easing set through {@link #setEasing(Easing)}
+ * is applied to the time of the timeline, and thus warps the time of all its children, which still
+ * apply their own easing.
+ *
+ * <p>Canceling the timeline cancels its running children, then calls {@link #onComplete()} if the
+ * timeline has started, as {@link Animation#onCancel()} does, without updating the canceled
+ * children. Completing the timeline completes all its children. Subclasses overriding {@link
+ * #onUpdate(double)}, {@link #onComplete()} or {@link #onCancel()} must call the super
+ * implementation.
+ */
+public class AnimationTimeline extends Animation {
+
+  /** A child animation placed on the timeline. */
+  private static class Child {
+    private final Animation animation;
+    private final int offset;
+    private final int duration;
+
+    Child(Animation animation, int offset, int duration) {
+      this.animation = animation;
+      this.offset = offset;
+      this.duration = duration;
+    }
+  }
+
+  private final List<Child> children = new ArrayList<>();
+
+  /** The duration of the timeline, which is the end of its last child. */
+  private int duration = 0;
+
+  /** Have the children been started for the current run. */
+  private boolean childrenStarted = false;
+
+  /** Is the timeline being canceled, in which case the children must not be updated. */
+  private boolean canceling = false;
+
+  /** Construct a new {@link AnimationTimeline}. */
+  public AnimationTimeline() {
+    setEasing(Easings.LINEAR);
+  }
+
+  /**
+   * Construct a new {@link AnimationTimeline} using the specified scheduler to request frames.
+   *
+   * @param scheduler an {@link AnimationScheduler} instance
+   */
+  protected AnimationTimeline(AnimationScheduler scheduler) {
+    super(scheduler);
+    setEasing(Easings.LINEAR);
+  }
+
+  /**
+   * Add an animation at the end of the timeline, so that it starts when all the animations already
+   * added have completed.
+   *
+   * @param animation the child animation
+   * @param duration the duration of the child animation in milliseconds
+   * @return this timeline
+   */
+  public AnimationTimeline add(Animation animation, int duration) {
+    return addAt(animation, this.duration, duration);
+  }
+
+  /**
+   * Add an animation at the specified offset from the start of the timeline. Animations added at
+   * the same offset run in parallel.
+   *
+   * @param animation the child animation
+   * @param offset the offset of the child animation in milliseconds
+   * @param duration the duration of the child animation in milliseconds
+   * @return this timeline
+   */
+  public AnimationTimeline addAt(Animation animation, int offset, int duration) {
+    children.add(new Child(animation, offset, duration));
+    this.duration = Math.max(this.duration, offset + duration);
+    return this;
+  }
+
+  /**
+   * Add animations with staggered offsets: the first animation starts at the specified offset, and
+   * each following one starts {@code stagger} milliseconds after the previous one.
+   *
+   * @param offset the offset of the first animation in milliseconds
+   * @param stagger the delay between the start of two consecutive animations in milliseconds
+   * @param duration the duration of each animation in milliseconds
+   * @param animations the child animations
+   * @return this timeline
+   */
+  public AnimationTimeline addStaggered(
+      int offset, int stagger, int duration, Animation... animations) {
+    for (int i = 0; i < animations.length; i++) {
+      addAt(animations[i], offset + i * stagger, duration);
+    }
+    return this;
+  }
+
+  /**
+   * Returns the duration of the timeline, which is the end of its last child.
+   *
+   * @return the duration in milliseconds
+   */
+  public int getDuration() {
+    return duration;
+  }
+
+  /**
+   * Immediately run this timeline for its duration. If the timeline is already running, it will be
+   * canceled first.
+   *
+   * <p>Running the timeline with another duration through {@link #run(int)} scales the time of all
+   * its children.
+   */
+  public void run() {
+    run(duration);
+  }
+
+  /**
+   * Immediately run this timeline for its duration. If the timeline is already running, it will be
+   * canceled first.
+   *
+   * @param element the element that visually bounds the entire timeline
+   * @see Animation#run(int, Element)
+   */
+  public void run(Element element) {
+    run(duration, element);
+  }
+
+  /** Cancel the running children, then complete the timeline if it has started. */
+  @Override
+  protected void onCancel() {
+    canceling = true;
+    try {
+      if (childrenStarted) {
+        childrenStarted = false;
+        for (Child child : children) {
+          child.animation.cancel();
+        }
+      }
+      super.onCancel();
+    } finally {
+      canceling = false;
+    }
+  }
+
+  @Override
+  protected void onComplete() {
+    super.onComplete();
+    childrenStarted = false;
+  }
+
+  /**
+   * Update all the children to the time corresponding to the progress of the timeline.
+   *
+   * @param progress the progress of the timeline
+   */
+  @Override
+  protected void onUpdate(double progress) {
+    if (canceling) {
+      return;
+    }
+    if (!childrenStarted) {
+      childrenStarted = true;
+      for (Child child : children) {
+        child.animation.startDriven(child.duration, child.offset);
+      }
+    }
+    double time = progress * duration;
+    for (Child child : children) {
+      child.animation.step(time);
+    }
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+/**
+ * A recorder of the lifecycle of the animations and of the frames of the schedulers, exported in
+ * the Trace Event Format read by {@code chrome://tracing} and Perfetto.
+ *
+ * <p>Once enabled through {@link #setEnabled(boolean)}, every {@link Animation} records its runs,
+ * its start, each update with its duration, its cancellation and its completion, and each {@link
+ * CoalescingAnimationScheduler} records its frames with their duration. The events are kept in a
+ * ring buffer of a fixed {@link #setCapacity(int) capacity}, overwriting the oldest ones, and are
+ * exported on demand by {@link #export()}. The times are those of {@link
+ * AnimationScheduler#currentTimeMillis()}, exported in whole microseconds since the first event
+ * recorded after the last {@link #clear()}. Each animation and scheduler is identified by a
+ * sequence number assigned on its first event.
+ *
+ * <p>Recording does not allocate once the buffer exists, and costs a single check per event while
+ * disabled.
+ */
+public final class AnimationTracing {
+
+  /** The default number of events kept. */
+  public static final int DEFAULT_CAPACITY = 10000;
+
+  /** Is the tracing recorded. */
+  static boolean enabled = false;
+
+  private static int capacity = DEFAULT_CAPACITY;
+
+  // The ring buffer, allocated once the tracing is enabled.
+  private static String[] names;
+  private static String[] categories;
+  private static String[] classNames;
+  private static int[] ids;
+
+  /** The times of the events, in milliseconds since {@link #origin}. */
+  private static double[] timestamps;
+
+  /** The durations of the events, or NaN for instant events. */
+  private static double[] durations;
+
+  /** The index of the oldest event. */
+  private static int first;
+
+  private static int count;
+
+  /** The time of the first event recorded, or NaN if none. */
+  private static double origin = Double.NaN;
+
+  /** The last identifier assigned to an animation or a scheduler. */
+  private static int lastId = 0;
+
+  private AnimationTracing() {}
+
+  /**
+   * Returns true if the tracing is recorded.
+   *
+   * @return true if enabled, false by default
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Set whether the tracing is recorded. The events recorded so far are kept until {@link
+   * #clear()}.
+   *
+   * @param enabled true to record the tracing
+   */
+  public static void setEnabled(boolean enabled) {
+    if (enabled && names == null) {
+      allocate();
+    }
+    AnimationTracing.enabled = enabled;
+  }
+
+  /**
+   * Returns the maximum number of events kept.
+   *
+   * @return the number of events, {@link #DEFAULT_CAPACITY} by default
+   */
+  public static int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Set the maximum number of events kept, discarding the events recorded so far.
+   *
+   * @param capacity the number of events, positive
+   */
+  public static void setCapacity(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    AnimationTracing.capacity = capacity;
+    if (names != null) {
+      allocate();
+    }
+  }
+
+  /**
+   * Returns the number of events kept.
+   *
+   * @return the number of events, at most the capacity
+   */
+  public static int getEventCount() {
+    return count;
+  }
+
+  /** Discard the events recorded so far. */
+  public static void clear() {
+    first = 0;
+    count = 0;
+    origin = Double.NaN;
+    if (names != null) {
+      // Do not retain the class names.
+      for (int i = 0; i < capacity; i++) {
+        classNames[i] = null;
+      }
+    }
+  }
+
+  /**
+   * Export the events kept, from the oldest, as a Trace Event Format JSON object.
+   *
+   * @return the JSON text
+   */
+  public static String export() {
+    StringBuilder json = new StringBuilder("{\"traceEvents\":[");
+    for (int i = 0; i < count; i++) {
+      int index = (first + i) % capacity;
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append("{\"name\":\"").append(names[index]);
+      json.append("\",\"cat\":\"").append(categories[index]).append('"');
+      if (Double.isNaN(durations[index])) {
+        json.append(",\"ph\":\"i\",\"s\":\"t\"");
+      } else {
+        json.append(",\"ph\":\"X\",\"dur\":").append(toMicros(durations[index]));
+      }
+      json.append(",\"ts\":").append(toMicros(timestamps[index]));
+      json.append(",\"pid\":1,\"tid\":1,\"args\":{\"class\":\"");
+      appendEscaped(json, classNames[index]);
+      json.append("\",\"id\":").append(ids[index]).append("}}");
+    }
+    return json.append("],\"displayTimeUnit\":\"ms\"}").toString();
+  }
+
+  /** Record an event of an animation. */
+  static void record(Animation animation, String name, double time, double duration) {
+    if (animation.traceId == 0) {
+      animation.traceId = ++lastId;
+    }
+    add("animation", name, animation, animation.traceId, time, duration);
+  }
+
+  /** Record a frame of a scheduler. */
+  static void recordFrame(CoalescingAnimationScheduler scheduler, double time, double duration) {
+    if (scheduler.traceId == 0) {
+      scheduler.traceId = ++lastId;
+    }
+    add("scheduler", "frame", scheduler, scheduler.traceId, time, duration);
+  }
+
+  private static void add(
+      String category, String name, Object source, int id, double time, double duration) {
+    if (Double.isNaN(origin)) {
+      origin = time;
+    }
+    int index;
+    if (count < capacity) {
+      index = (first + count) % capacity;
+      count++;
+    } else {
+      // Overwrite the oldest event.
+      index = first;
+      first = (first + 1) % capacity;
+    }
+    names[index] = name;
+    categories[index] = category;
+    classNames[index] = source.getClass().getName();
+    ids[index] = id;
+    timestamps[index] = time - origin;
+    durations[index] = duration;
+  }
+
+  private static void allocate() {
+    names = new String[capacity];
+    categories = new String[capacity];
+    classNames = new String[capacity];
+    ids = new int[capacity];
+    timestamps = new double[capacity];
+    durations = new double[capacity];
+    first = 0;
+    count = 0;
+    origin = Double.NaN;
+  }
+
+  /** Format a time in milliseconds as whole microseconds, the unit of the Trace Event Format. */
+  private static String toMicros(double millis) {
+    return Long.toString(Math.round(millis * 1000));
+  }
+
+  private static void appendEscaped(StringBuilder json, String text) {
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '"' || c == '\\') {
+        json.append('\\');
+      }
+      json.append(c);
+    }
+  }
+}
@@ -0,0 +1,648 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.gwtproject.dom.client.Element;
+
+/**
+ * An {@link AnimationScheduler} that queues all the requested {@link AnimationCallback}s and drives
+ * them from a single underlying frame, instead of requesting one frame per callback.
+ *
+ * <p>Requesting and canceling a frame are both constant time operations. Callbacks requested while
+ * a frame is being dispatched are executed in the next frame.
+ *
+ * <p>Frames requested through {@link #requestAnimationFrameAt(AnimationCallback, Element, double)}
+ * wait in a queue sorted by time, and only join the frames shortly before their time. A single
+ * wake-up is scheduled for the earliest of them.
+ *
+ * <p>A frame budget can be set through {@link #setFrameBudget(double)}: once a frame has run for
+ * longer than the budget, its remaining {@linkplain AnimationCallback#isDeferrable() deferrable}
+ * callbacks are deferred to the next frame, where they run first so that none of them starves.
+ *
+ * <p>A {@link HiddenPolicy} can be set through {@link #setHiddenPolicy(HiddenPolicy)} to suspend
+ * the callbacks while the document is hidden, and either resume or complete the animations when it
+ * is visible again.
+ *
+ * <p>Subclasses provide the clock by implementing {@link #now()}. They provide the source of frames
+ * by implementing {@link #scheduleFrame()} and {@link #cancelFrame()}, and calling {@link
+ * #dispatchFrame(double)} when the frame occurs. They provide the wake-ups by implementing {@link
+ * #scheduleWakeUp(double)} and {@link #cancelWakeUp()}, and calling {@link #wakeUp()} when it
+ * occurs. They report the visibility of the document through {@link #setHidden(boolean)}.
+ */
+public abstract class CoalescingAnimationScheduler extends AnimationScheduler {
+
+  /** What to do with the callbacks while the document is hidden. */
+  public enum HiddenPolicy {
+    /** Keep executing the callbacks, at the rate allowed by the browser. */
+    RUN,
+    /**
+     * Suspend the callbacks, and resume them as if no time had passed while the document was
+     * hidden: the clock of the scheduler stops, which shifts the start time of every animation.
+     */
+    RESUME,
+    /**
+     * Suspend the callbacks, and complete every pending {@link Animation} at once, without any
+     * intermediate frame, when the document is visible again.
+     */
+    COMPLETE
+  }
+
+  /** How long before their time the waiting requests join the frames, in milliseconds. */
+  private static final double WAKE_UP_LEAD = 16;
+
+  /** The requests waiting for the next frame. */
+  private FrameQueue pending = new FrameQueue();
+
+  /** The requests being dispatched in the current frame. */
+  private FrameQueue dispatching = new FrameQueue();
+
+  /** The requests deferred to the next frame because the current one ran out of time. */
+  private final FrameQueue deferred = new FrameQueue();
+
+  /** The phases requested during the current frame. */
+  private final List<FramePhases> phases = new ArrayList<>();
+
+  /** Are the requested phases deferred to the end of the current frame. */
+  private boolean isDeferringPhases = false;
+
+  /** The time budget of a frame in milliseconds, or 0 if unlimited. */
+  private double frameBudget = 0;
+
+  /** The number of callbacks deferred because a frame ran out of time. */
+  private int deferredCount = 0;
+
+  /** The telemetry of the frames. */
+  private final AnimationTelemetry.Recorder telemetry = new AnimationTelemetry.Recorder();
+
+  /** The identifier of the scheduler in the {@link AnimationTracing}, or 0 if not assigned. */
+  int traceId = 0;
+
+  /** The requests waiting for their time, as a binary min-heap. */
+  private final List<FrameRequest> waiting = new ArrayList<>();
+
+  /** The time of the scheduled wake-up, or NaN if none. */
+  private double wakeUpTime = Double.NaN;
+
+  /** The request whose callback is currently executing, if it may be recycled. */
+  private FrameRequest executing;
+
+  /** Is a frame currently scheduled. */
+  private boolean isFrameScheduled = false;
+
+  private HiddenPolicy hiddenPolicy = HiddenPolicy.RUN;
+
+  /** Are the callbacks suspended because the document is hidden. */
+  private boolean isHidden = false;
+
+  /** The time of the clock when the document was hidden. */
+  private double hiddenSince;
+
+  /** The time the clock of the scheduler stood still while the document was hidden. */
+  private double hiddenTime = 0;
+
+  /**
+   * Returns the current time of the scheduler: the time of its clock, minus the time it stood still
+   * while the document was hidden under the {@link HiddenPolicy#RESUME} policy.
+   *
+   * @return the current time in milliseconds
+   */
+  @Override
+  public final double currentTimeMillis() {
+    return (isHidden && hiddenPolicy == HiddenPolicy.RESUME ? hiddenSince : now()) - hiddenTime;
+  }
+
+  @Override
+  public AnimationHandle requestAnimationFrame(AnimationCallback callback, Element element) {
+    FrameRequest request = newRequest(callback);
+    enqueue(request);
+    return request;
+  }
+
+  @Override
+  public AnimationHandle requestAnimationFrameAt(
+      AnimationCallback callback, Element element, double time) {
+    FrameRequest request = newRequest(callback);
+    if (time - WAKE_UP_LEAD <= currentTimeMillis()) {
+      enqueue(request);
+    } else {
+      request.time = time;
+      heapAdd(request);
+      if (waiting.get(0) == request) {
+        rescheduleWakeUp();
+      }
+    }
+    return request;
+  }
+
+  /**
+   * Move the waiting requests whose time is close into the next frame, and schedule a wake-up for
+   * the remaining ones.
+   */
+  protected final void wakeUp() {
+    wakeUpTime = Double.NaN;
+    if (isHidden) {
+      // The wake-up is rescheduled once the document is visible again.
+      return;
+    }
+    double limit = currentTimeMillis() + WAKE_UP_LEAD;
+    while (!waiting.isEmpty() && waiting.get(0).time <= limit) {
+      FrameRequest request = waiting.get(0);
+      heapRemove(request);
+      enqueue(request);
+    }
+    rescheduleWakeUp();
+  }
+
+  /**
+   * Execute all the callbacks requested before this frame.
+   *
+   * <p>If a callback throws an exception, the callbacks that did not run yet are kept for the next
+   * frame, the phases already requested still run, and the exception is propagated.
+   *
+   * @param timestamp the timestamp of the frame, in the timebase of {@link #now()}
+   */
+  protected final void dispatchFrame(double timestamp) {
+    isFrameScheduled = false;
+    timestamp -= hiddenTime;
+
+    // Swap the queues so that callbacks requested during this frame run in the next one.
+    FrameQueue frame = pending;
+    pending = dispatching;
+    dispatching = frame;
+
+    boolean isRecording = AnimationTelemetry.enabled;
+    boolean isTracing = AnimationTracing.enabled;
+    double begin = frameBudget > 0 || isRecording || isTracing ? currentTimeMillis() : 0;
+    double deadline = frameBudget > 0 ? begin + frameBudget : 0;
+    boolean isOverBudget = false;
+    isDeferringPhases = true;
+    RuntimeException failure = null;
+    try {
+      FrameRequest request;
+      while ((request = frame.poll()) != null) {
+        if (isOverBudget && request.callback.isDeferrable()) {
+          deferred.add(request);
+          deferredCount++;
+          continue;
+        }
+        if (RECYCLE_HANDLES) {
+          executing = request;
+        }
+        try {
+          request.callback.execute(timestamp);
+        } finally {
+          // Only the callback itself may reuse its request, not the next callbacks nor phases.
+          executing = null;
+        }
+        if (deadline > 0 && !isOverBudget) {
+          isOverBudget = currentTimeMillis() >= deadline;
+        }
+      }
+    } catch (RuntimeException e) {
+      failure = e;
+      throw e;
+    } finally {
+      try {
+        // The phases requested by the callbacks which ran still run if a later callback threw.
+        runPhases();
+      } catch (RuntimeException e) {
+        if (failure == null) {
+          throw e;
+        }
+        failure.addSuppressed(e);
+      } finally {
+        isDeferringPhases = false;
+        phases.clear();
+        if (!deferred.isEmpty()) {
+          pending.prependAll(deferred);
+        }
+        if (!frame.isEmpty()) {
+          pending.prependAll(frame);
+        }
+        if (!pending.isEmpty()) {
+          requestFrame();
+        }
+        if (isRecording) {
+          double frameMillis = currentTimeMillis() - begin;
+          double interval =
+              telemetry.record(timestamp, frameMillis, AnimationTelemetry.getFrameInterval());
+          AnimationTelemetry.fireFrame(this, frameMillis, interval);
+        }
+        if (isTracing) {
+          AnimationTracing.recordFrame(this, begin, currentTimeMillis() - begin);
+        }
+      }
+    }
+  }
+
+  /**
+   * Run the phases requested during the frame: all the measures run before any mutate. Phases
+   * requested by a mutate run immediately.
+   */
+  private void runPhases() {
+    for (int i = 0; i < phases.size(); i++) {
+      phases.get(i).measure();
+    }
+    isDeferringPhases = false;
+    for (int i = 0; i < phases.size(); i++) {
+      phases.get(i).mutate();
+    }
+  }
+
+  /**
+   * Returns the telemetry of the frames run while {@link AnimationTelemetry#isEnabled()}, since the
+   * creation of this scheduler or the last call to {@link #resetTelemetry()}.
+   *
+   * @return a snapshot of the telemetry
+   */
+  public AnimationTelemetry.Snapshot getTelemetry() {
+    return telemetry.snapshot(Double.NaN);
+  }
+
+  /** Reset the telemetry of the frames. */
+  public void resetTelemetry() {
+    telemetry.reset();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The phases requested while this scheduler dispatches a frame are deferred to the end of the
+   * frame, once all its callbacks have been executed: the measures run in the order the phases were
+   * requested, then the mutates in the same order.
+   */
+  @Override
+  public void requestFramePhases(FramePhases phases) {
+    if (isDeferringPhases) {
+      this.phases.add(phases);
+    } else {
+      super.requestFramePhases(phases);
+    }
+  }
+
+  /**
+   * Returns the time budget of a frame.
+   *
+   * @return the budget in milliseconds, or 0 if unlimited
+   */
+  public double getFrameBudget() {
+    return frameBudget;
+  }
+
+  /**
+   * Set the time budget of a frame. Once a frame has run for longer than the budget, its remaining
+   * deferrable callbacks are deferred to the next frame. The first callback of a frame always runs.
+   *
+   * <p>The budget is unlimited by default. A fraction of the display refresh interval, such as 8
+   * milliseconds at 60 Hz, leaves time for the rest of the frame.
+   *
+   * @param frameBudget the budget in milliseconds, or 0 for unlimited
+   */
+  public void setFrameBudget(double frameBudget) {
+    if (frameBudget < 0) {
+      throw new IllegalArgumentException("must be non-negative");
+    }
+    this.frameBudget = frameBudget;
+  }
+
+  /**
+   * Returns the number of callbacks deferred to a later frame because their frame ran out of time,
+   * since this scheduler was created or since the last call to {@link #resetDeferredCount()}.
+   *
+   * @return the number of deferred callbacks
+   */
+  public int getDeferredCount() {
+    return deferredCount;
+  }
+
+  /** Reset the number of deferred callbacks returned by {@link #getDeferredCount()}. */
+  public void resetDeferredCount() {
+    deferredCount = 0;
+  }
+
+  /**
+   * Returns the policy applied while the document is hidden.
+   *
+   * @return the policy, {@link HiddenPolicy#RUN} by default
+   */
+  public HiddenPolicy getHiddenPolicy() {
+    return hiddenPolicy;
+  }
+
+  /**
+   * Set the policy applied while the document is hidden.
+   *
+   * @param hiddenPolicy the policy
+   */
+  public void setHiddenPolicy(HiddenPolicy hiddenPolicy) {
+    if (isHidden) {
+      // Apply the previous policy before switching.
+      setHidden(false);
+    }
+    this.hiddenPolicy = hiddenPolicy;
+  }
+
+  /**
+   * Report a change of the visibility of the document. Under a policy other than {@link
+   * HiddenPolicy#RUN}, the callbacks are suspended while the document is hidden.
+   *
+   * @param hidden true if the document is hidden
+   */
+  protected final void setHidden(boolean hidden) {
+    if (hidden == isHidden || (hidden && hiddenPolicy == HiddenPolicy.RUN)) {
+      return;
+    }
+    if (hidden) {
+      hiddenSince = now();
+      isHidden = true;
+      if (isFrameScheduled) {
+        isFrameScheduled = false;
+        cancelFrame();
+      }
+      return;
+    }
+
+    if (hiddenPolicy == HiddenPolicy.RESUME) {
+      hiddenTime += now() - hiddenSince;
+    }
+    isHidden = false;
+    if (hiddenPolicy == HiddenPolicy.COMPLETE) {
+      completeAnimations();
+    }
+    if (!Double.isNaN(wakeUpTime)) {
+      wakeUpTime = Double.NaN;
+      cancelWakeUp();
+    }
+    wakeUp();
+    if (!pending.isEmpty()) {
+      requestFrame();
+    }
+  }
+
+  /**
+   * Returns the current time of the underlying clock, in the timebase of the timestamps passed to
+   * {@link #dispatchFrame(double)}.
+   *
+   * @return the current time in milliseconds
+   */
+  protected abstract double now();
+
+  /**
+   * Schedule a frame. Once it occurs, {@link #dispatchFrame(double)} must be called. This is only
+   * called when no frame is currently scheduled.
+   */
+  protected abstract void scheduleFrame();
+
+  /** Cancel the frame scheduled by {@link #scheduleFrame()}. */
+  protected abstract void cancelFrame();
+
+  /**
+   * Schedule a wake-up. Once it occurs, {@link #wakeUp()} must be called. A scheduled wake-up is
+   * canceled with {@link #cancelWakeUp()} before another one is scheduled.
+   *
+   * @param delayMillis the delay before the wake-up, in milliseconds
+   */
+  protected abstract void scheduleWakeUp(double delayMillis);
+
+  /** Cancel the wake-up scheduled by {@link #scheduleWakeUp(double)}. */
+  protected abstract void cancelWakeUp();
+
+  private FrameRequest newRequest(AnimationCallback callback) {
+    if (executing != null && executing.callback == callback) {
+      // The callback requests its next frame: reuse its request.
+      FrameRequest request = executing;
+      executing = null;
+      return request;
+    }
+    return new FrameRequest(callback);
+  }
+
+  private void enqueue(FrameRequest request) {
+    pending.add(request);
+    requestFrame();
+  }
+
+  private void requestFrame() {
+    if (!isFrameScheduled && !isHidden) {
+      isFrameScheduled = true;
+      scheduleFrame();
+    }
+  }
+
+  /** Complete every pending and waiting {@link Animation} directly. */
+  private void completeAnimations() {
+    FrameQueue animations = new FrameQueue();
+    FrameRequest next;
+    for (FrameRequest request = pending.head; request != null; request = next) {
+      next = request.next;
+      if (request.callback instanceof Animation.FrameCallback) {
+        pending.remove(request);
+        animations.add(request);
+      }
+    }
+    for (FrameRequest request : new ArrayList<>(waiting)) {
+      if (request.callback instanceof Animation.FrameCallback) {
+        heapRemove(request);
+        animations.add(request);
+      }
+    }
+
+    FrameRequest request;
+    while ((request = animations.poll()) != null) {
+      ((Animation.FrameCallback) request.callback).complete();
+    }
+  }
+
+  /** Schedule a wake-up for the earliest waiting request, if needed. */
+  private void rescheduleWakeUp() {
+    double time = waiting.isEmpty() ? Double.NaN : waiting.get(0).time - WAKE_UP_LEAD;
+    if (time == wakeUpTime || (Double.isNaN(time) && Double.isNaN(wakeUpTime))) {
+      return;
+    }
+    if (!Double.isNaN(wakeUpTime)) {
+      cancelWakeUp();
+    }
+    wakeUpTime = time;
+    if (!Double.isNaN(time)) {
+      scheduleWakeUp(Math.max(0, time - currentTimeMillis()));
+    }
+  }
+
+  /** Called by a {@link FrameRequest} when it is canceled. */
+  private void onCancel() {
+    if (isFrameScheduled && pending.isEmpty()) {
+      isFrameScheduled = false;
+      cancelFrame();
+    }
+    rescheduleWakeUp();
+  }
+
+  private void heapAdd(FrameRequest request) {
+    request.heapIndex = waiting.size();
+    waiting.add(request);
+    siftUp(request.heapIndex);
+  }
+
+  private void heapRemove(FrameRequest request) {
+    int index = request.heapIndex;
+    FrameRequest last = waiting.remove(waiting.size() - 1);
+    request.heapIndex = -1;
+    if (last != request) {
+      waiting.set(index, last);
+      last.heapIndex = index;
+      siftDown(index);
+      siftUp(last.heapIndex);
+    }
+  }
+
+  private void siftUp(int index) {
+    FrameRequest request = waiting.get(index);
+    while (index > 0) {
+      int parentIndex = (index - 1) / 2;
+      FrameRequest parent = waiting.get(parentIndex);
+      if (parent.time <= request.time) {
+        break;
+      }
+      waiting.set(index, parent);
+      parent.heapIndex = index;
+      index = parentIndex;
+    }
+    waiting.set(index, request);
+    request.heapIndex = index;
+  }
+
+  private void siftDown(int index) {
+    FrameRequest request = waiting.get(index);
+    int size = waiting.size();
+    while (true) {
+      int childIndex = 2 * index + 1;
+      if (childIndex >= size) {
+        break;
+      }
+      if (childIndex + 1 < size
+          && waiting.get(childIndex + 1).time < waiting.get(childIndex).time) {
+        childIndex++;
+      }
+      FrameRequest child = waiting.get(childIndex);
+      if (request.time <= child.time) {
+        break;
+      }
+      waiting.set(index, child);
+      child.heapIndex = index;
+      index = childIndex;
+    }
+    waiting.set(index, request);
+    request.heapIndex = index;
+  }
+
+  /** A request for the next frame, which is also its own handle. */
+  private class FrameRequest extends AnimationHandle {
+
+    private final AnimationCallback callback;
+
+    /** The queue this request belongs to, or null if it is waiting, executed or canceled. */
+    private FrameQueue queue;
+
+    private FrameRequest previous;
+    private FrameRequest next;
+
+    /** The time this request is waiting for. */
+    private double time;
+
+    /** The index of this request in the waiting heap, or -1 if it is not waiting. */
+    private int heapIndex = -1;
+
+    FrameRequest(AnimationCallback callback) {
+      this.callback = callback;
+    }
+
+    @Override
+    public void cancel() {
+      if (queue != null) {
+        queue.remove(this);
+      } else if (heapIndex >= 0) {
+        heapRemove(this);
+      } else {
+        return;
+      }
+      CoalescingAnimationScheduler.this.onCancel();
+    }
+  }
+
+  /** A doubly linked list of {@link FrameRequest}s. */
+  private static class FrameQueue {
+
+    private FrameRequest head;
+    private FrameRequest tail;
+
+    boolean isEmpty() {
+      return head == null;
+    }
+
+    void add(FrameRequest request) {
+      request.queue = this;
+      request.previous = tail;
+      if (tail == null) {
+        head = request;
+      } else {
+        tail.next = request;
+      }
+      tail = request;
+    }
+
+    FrameRequest poll() {
+      FrameRequest request = head;
+      if (request != null) {
+        remove(request);
+      }
+      return request;
+    }
+
+    void remove(FrameRequest request) {
+      if (request.previous == null) {
+        head = request.next;
+      } else {
+        request.previous.next = request.next;
+      }
+      if (request.next == null) {
+        tail = request.previous;
+      } else {
+        request.next.previous = request.previous;
+      }
+      request.queue = null;
+      request.previous = null;
+      request.next = null;
+    }
+
+    /** Move all the requests of the other queue in front of this queue. */
+    void prependAll(FrameQueue other) {
+      for (FrameRequest request = other.head; request != null; request = request.next) {
+        request.queue = this;
+      }
+      if (head == null) {
+        tail = other.tail;
+      } else {
+        other.tail.next = head;
+        head.previous = other.tail;
+      }
+      head = other.head;
+      other.head = null;
+      other.tail = null;
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+/**
+ * Formatting of the numbers written to styles.
+ *
+ * <p>A number is first quantized, i.e. rounded to a number of decimals and expressed as an
+ * integer-valued double of that many decimal units, so that callers can compare the quantized
+ * values to skip writing an unchanged style before formatting anything.
+ */
+final class CssNumbers {
+
+  private static final double[] FACTORS = {1, 10, 100, 1000, 10000, 100000, 1000000};
+
+  /** The leading zeros of the longest fraction. */
+  private static final String ZEROS = "000000";
+
+  private CssNumbers() {}
+
+  /**
+   * Round a number to the given number of decimals.
+   *
+   * @param value the number
+   * @param decimals the number of decimals, between 0 and 6
+   * @return the number of decimal units, an integer-valued double
+   */
+  static double quantize(double value, int decimals) {
+    return Math.rint(value * FACTORS[decimals]);
+  }
+
+  /**
+   * Format a quantized number, without trailing zeros and never in scientific notation.
+   *
+   * @param quantized the number of decimal units, as returned by {@link #quantize(double, int)},
+   *     whose integer part fits in an {@code int}
+   * @param decimals the number of decimals it was quantized to
+   * @return the CSS number
+   */
+  static String format(double quantized, int decimals) {
+    if (quantized == 0) {
+      // Also covers -0.
+      return "0";
+    }
+    double abs = Math.abs(quantized);
+    double factor = FACTORS[decimals];
+    int integer = (int) (abs / factor);
+    int fraction = (int) (abs - integer * factor);
+    String result = (quantized < 0 ? "-" : "") + integer;
+    if (fraction == 0) {
+      return result;
+    }
+    // Drop the trailing zeros, then pad the remaining digits with leading zeros.
+    int digits = decimals;
+    while (fraction % 10 == 0) {
+      fraction /= 10;
+      digits--;
+    }
+    String fractionDigits = Integer.toString(fraction);
+    return result + "." + ZEROS.substring(fractionDigits.length(), digits) + fractionDigits;
+  }
+
+  /**
+   * Format a number rounded to 3 decimals.
+   *
+   * @param value the number
+   * @return the CSS number
+   */
+  static String format(double value) {
+    return format(quantize(value, 3), 3);
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+/**
+ * An easing function, mapping the linear progress of an {@link Animation} to a more natural
+ * progress.
+ *
+ * @see Easings
+ * @see Animation#setEasing(Easing)
+ */
+@FunctionalInterface
+public interface Easing {
+
+  /**
+   * Interpolate the linear progress.
+   *
+   * <p>Depending on the easing, the return value of this method can be less than 0.0 or greater
+   * than 1.0.
+   *
+   * @param progress the linear progress, between 0.0 and 1.0
+   * @return the interpolated progress
+   */
+  double ease(double progress);
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Standard {@link Easing} functions.
+ *
+ * <p>Except for {@link #LINEAR}, {@link #COSINE} and {@link #steps(int)}, the easings are evaluated
+ * through a table of precomputed samples, so that evaluating them in each frame is a table lookup.
+ * The samples are interpolated linearly, which approximates the exact functions, and the progress
+ * is clamped between 0.0 and 1.0.
+ */
+public final class Easings {
+
+  /** The maximum number of cubic bézier easings kept in {@link #cubicBeziers}. */
+  static final int CUBIC_BEZIER_CACHE_SIZE = 32;
+
+  /**
+   * The last used cubic bézier easings, by control points, so that animations created with the same
+   * control points share their samples. The least recently used easing is evicted first.
+   */
+  private static final Map<String, Easing> cubicBeziers =
+      new LinkedHashMap<String, Easing>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Easing> eldest) {
+          return size() > CUBIC_BEZIER_CACHE_SIZE;
+        }
+      };
+
+  /** Progresses linearly. */
+  public static final Easing LINEAR = progress -> progress;
+
+  /**
+   * Accelerates then decelerates along a cosine curve, computed exactly. This is the historical
+   * interpolation of {@link Animation}.
+   */
+  public static final Easing COSINE = progress -> (1 + Math.cos(Math.PI + progress * Math.PI)) / 2;
+
+  /**
+   * {@link #COSINE} through a table of samples, which it approximates within {@code 1e-5} without
+   * calling {@link Math#cos(double)} in each frame. This is the default easing of {@link
+   * Animation}; set {@link #COSINE} through {@link Animation#setEasing(Easing)} for the exact
+   * curve, or for a progress outside of 0.0 and 1.0.
+   */
+  public static final Easing SAMPLED_COSINE = sampled(COSINE);
+
+  /** The CSS {@code ease} timing function. */
+  public static final Easing EASE = sampled(new CubicBezier(0.25, 0.1, 0.25, 1));
+
+  /** The CSS {@code ease-in} timing function. */
+  public static final Easing EASE_IN = sampled(new CubicBezier(0.42, 0, 1, 1));
+
+  /** The CSS {@code ease-out} timing function. */
+  public static final Easing EASE_OUT = sampled(new CubicBezier(0, 0, 0.58, 1));
+
+  /** The CSS {@code ease-in-out} timing function. */
+  public static final Easing EASE_IN_OUT = sampled(new CubicBezier(0.42, 0, 0.58, 1));
+
+  /** Overshoots the end slightly before settling, see {@link #back(double)}. */
+  public static final Easing BACK = back(1.70158);
+
+  /** Overshoots the end and oscillates around it with a decreasing amplitude before settling. */
+  public static final Easing ELASTIC =
+      sampled(
+          progress ->
+              progress == 0 || progress == 1
+                  ? progress
+                  : Math.pow(2, -10 * progress)
+                          * Math.sin((progress * 10 - 0.75) * (2 * Math.PI / 3))
+                      + 1);
+
+  /**
+   * Returns the easing of the CSS {@code cubic-bezier(x1, y1, x2, y2)} timing function. The control
+   * points of the CSS keywords return the shared constants, such as {@link #EASE}. The easings of
+   * other control points are shared through a cache of the {@value #CUBIC_BEZIER_CACHE_SIZE} last
+   * used ones.
+   *
+   * @param x1 the abscissa of the first control point, between 0.0 and 1.0
+   * @param y1 the ordinate of the first control point
+   * @param x2 the abscissa of the second control point, between 0.0 and 1.0
+   * @param y2 the ordinate of the second control point
+   * @return the cubic bézier easing
+   */
+  public static Easing cubicBezier(double x1, double y1, double x2, double y2) {
+    if (x1 < 0 || x1 > 1 || x2 < 0 || x2 > 1) {
+      throw new IllegalArgumentException("abscissas must be between 0 and 1");
+    }
+    if (y1 == 0 && x2 == 0.58 && y2 == 1) {
+      if (x1 == 0.42) {
+        return EASE_IN_OUT;
+      } else if (x1 == 0) {
+        return EASE_OUT;
+      }
+    } else if (x1 == 0.42 && y1 == 0 && x2 == 1 && y2 == 1) {
+      return EASE_IN;
+    } else if (x1 == 0.25 && y1 == 0.1 && x2 == 0.25 && y2 == 1) {
+      return EASE;
+    }
+    String key = x1 + "," + y1 + "," + x2 + "," + y2;
+    Easing easing = cubicBeziers.get(key);
+    if (easing == null) {
+      easing = sampled(new CubicBezier(x1, y1, x2, y2));
+      cubicBeziers.put(key, easing);
+    }
+    return easing;
+  }
+
+  /**
+   * Returns the easing of the CSS {@code steps(count, jump-end)} timing function.
+   *
+   * @param count the number of steps
+   * @return the stepped easing
+   */
+  public static Easing steps(int count) {
+    return steps(count, false);
+  }
+
+  /**
+   * Returns the easing of the CSS {@code steps(count, jump-start)} or {@code steps(count,
+   * jump-end)} timing function. With {@code jump-start}, the first step is taken at the start: the
+   * easing is {@code 1 / count} at progress 0.0.
+   *
+   * @param count the number of steps
+   * @param jumpStart true to jump at the start of each step, false to jump at its end
+   * @return the stepped easing
+   */
+  public static Easing steps(int count, boolean jumpStart) {
+    if (count <= 0) {
+      throw new IllegalArgumentException("must be positive");
+    }
+    return progress -> {
+      if (progress >= 1) {
+        return 1;
+      } else if (progress < 0) {
+        return 0;
+      }
+      double steps = Math.floor(progress * count);
+      return (jumpStart ? steps + 1 : steps) / count;
+    };
+  }
+
+  /**
+   * Returns an easing decelerating to overshoot the end, then coming back to it.
+   *
+   * @param overshoot the amount of overshoot, {@code 1.70158} giving a 10% overshoot
+   * @return the back easing
+   */
+  public static Easing back(double overshoot) {
+    return sampled(
+        progress -> {
+          if (progress == 0 || progress == 1) {
+            return progress;
+          }
+          double t = progress - 1;
+          return 1 + (overshoot + 1) * t * t * t + overshoot * t * t;
+        });
+  }
+
+  /**
+   * Returns an easing evaluating the specified easing through a table of precomputed samples. This
+   * is useful for expensive custom easings that are evaluated in each frame.
+   *
+   * @param easing the easing to sample
+   * @return the sampled easing
+   */
+  public static Easing sampled(Easing easing) {
+    return new SampledEasing(easing);
+  }
+
+  /** The exact cubic bézier curve, used to compute the samples. */
+  private static class CubicBezier implements Easing {
+
+    private static final double EPSILON = 1e-7;
+
+    private final double ax;
+    private final double bx;
+    private final double cx;
+    private final double ay;
+    private final double by;
+    private final double cy;
+
+    CubicBezier(double x1, double y1, double x2, double y2) {
+      cx = 3 * x1;
+      bx = 3 * (x2 - x1) - cx;
+      ax = 1 - cx - bx;
+      cy = 3 * y1;
+      by = 3 * (y2 - y1) - cy;
+      ay = 1 - cy - by;
+    }
+
+    @Override
+    public double ease(double progress) {
+      if (progress <= 0 || progress >= 1) {
+        return progress <= 0 ? 0 : 1;
+      }
+      double t = solveCurveX(progress);
+      return ((ay * t + by) * t + cy) * t;
+    }
+
+    private double curveX(double t) {
+      return ((ax * t + bx) * t + cx) * t;
+    }
+
+    /** Find the parameter of the curve for the abscissa, using Newton-Raphson then bisection. */
+    private double solveCurveX(double x) {
+      double t = x;
+      for (int i = 0; i < 8; i++) {
+        double error = curveX(t) - x;
+        if (Math.abs(error) < EPSILON) {
+          return t;
+        }
+        double derivative = (3 * ax * t + 2 * bx) * t + cx;
+        if (Math.abs(derivative) < EPSILON) {
+          break;
+        }
+        t -= error / derivative;
+      }
+      double low = 0;
+      double high = 1;
+      t = x;
+      while (high - low > EPSILON) {
+        double value = curveX(t);
+        if (Math.abs(value - x) < EPSILON) {
+          return t;
+        }
+        if (value < x) {
+          low = t;
+        } else {
+          high = t;
+        }
+        t = (low + high) / 2;
+      }
+      return t;
+    }
+  }
+
+  private Easings() {}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import elemental2.dom.DomGlobal;
+import org.gwtproject.core.client.Duration;
+
+/**
+ * The clock of the browser schedulers.
+ *
+ * <p>Frame timestamps are the high resolution {@code requestAnimationFrame} timestamps, shifted by
+ * the constant {@code performance.timeOrigin} so that they remain comparable to epoch milliseconds.
+ * The shift is computed once, so all the callbacks of a frame see the same monotonic timestamp.
+ *
+ * <p>Setting the {@code gwt.animation.timestamps} system property to {@code epoch} restores the
+ * previous behavior of reading {@link Duration#currentTimeMillis()} instead, for code that relies
+ * on timestamps following the wall clock exactly.
+ */
+final class FrameClock {
+
+  /** Whether timestamps are read from the wall clock. */
+  static final boolean EPOCH_TIMESTAMPS =
+      "epoch".equals(System.getProperty("gwt.animation.timestamps", "frame"));
+
+  /** The shift from the high resolution timebase to epoch milliseconds. */
+  private static double origin = Double.NaN;
+
+  /**
+   * Returns the current time.
+   *
+   * @return the current time in milliseconds
+   */
+  static double now() {
+    if (EPOCH_TIMESTAMPS) {
+      return Duration.currentTimeMillis();
+    }
+    return DomGlobal.performance.now() + origin();
+  }
+
+  /**
+   * Converts a native frame timestamp into a timestamp passed to animation callbacks.
+   *
+   * @param frameTime the {@code DOMHighResTimeStamp} of the frame
+   * @return the frame timestamp in milliseconds
+   */
+  static double toTimestamp(double frameTime) {
+    if (EPOCH_TIMESTAMPS) {
+      return Duration.currentTimeMillis();
+    }
+    return frameTime + origin();
+  }
+
+  private static double origin() {
+    if (Double.isNaN(origin)) {
+      double timeOrigin = DomGlobal.performance.timeOrigin;
+      // Older browsers do not expose timeOrigin.
+      origin =
+          timeOrigin > 0 ? timeOrigin : Duration.currentTimeMillis() - DomGlobal.performance.now();
+    }
+    return origin;
+  }
+
+  private FrameClock() {}
+}
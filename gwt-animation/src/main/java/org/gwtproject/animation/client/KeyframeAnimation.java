@@ -0,0 +1,432 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import jsinterop.annotations.JsFunction;
+import jsinterop.annotations.JsPackage;
+import jsinterop.annotations.JsType;
+import jsinterop.base.Js;
+import jsinterop.base.JsPropertyMap;
+import org.gwtproject.dom.client.Element;
+
+/**
+ * An {@link Animation} of the {@code transform}, {@code opacity} and {@code filter} of an element,
+ * described by {@link Keyframe}s.
+ *
+ * <p>When run with an element in a browser supporting the Web Animations API, the keyframes are
+ * played by {@code Element.animate()}, off the main thread where the browser allows it, so that the
+ * animation does not stutter while the main thread is busy. The animation still starts and
+ * completes like any other {@link Animation}, but {@link #onUpdate(double)} is not called in
+ * between: the keyframes are handed to the browser in {@link #onStart()}, no frame is requested
+ * until the end of the run, and {@link #onComplete()} commits the last keyframe to the style of the
+ * element. As a consequence, an element detached while played by the browser is only noticed at the
+ * end of the run by {@link #setCancelWhenDetached(boolean)}. Otherwise, the animation falls back to
+ * the frames of its {@link AnimationScheduler}, updating the style of the element in {@link
+ * #onUpdate(double)}.
+ *
+ * <p>The Web Animations API is only used with the easings it can express: the default easing,
+ * {@link Easings#LINEAR}, and the curves set through {@link #setTimingFunction(double, double,
+ * double, double)}. Setting another {@link Easing} selects the fallback.
+ */
+public class KeyframeAnimation extends Animation {
+
+  /**
+   * The values of the animated properties at an offset of the animation. The transform is applied
+   * as {@code translate(x, y) scale(s) rotate(r)}, and the filter as {@code blur(b)}. A property is
+   * animated if any keyframe sets it, and takes its identity value in the keyframes not setting it.
+   */
+  public static final class Keyframe {
+    private final double offset;
+    private double translateX = 0;
+    private double translateY = 0;
+    private double scale = 1;
+    private double rotate = 0;
+    private double opacity = 1;
+    private double blur = 0;
+    private boolean hasTransform = false;
+    private boolean hasOpacity = false;
+    private boolean hasFilter = false;
+
+    private Keyframe(double offset) {
+      this.offset = offset;
+    }
+
+    /**
+     * Create a keyframe.
+     *
+     * @param offset the offset of the keyframe in the animation, between 0 and 1
+     * @return the keyframe
+     */
+    public static Keyframe at(double offset) {
+      if (!(offset >= 0 && offset <= 1)) {
+        throw new IllegalArgumentException("offset must be between 0 and 1: " + offset);
+      }
+      return new Keyframe(offset);
+    }
+
+    /**
+     * Set the translation of the element.
+     *
+     * @param x the horizontal translation in pixels
+     * @param y the vertical translation in pixels
+     * @return this keyframe
+     */
+    public Keyframe translate(double x, double y) {
+      translateX = x;
+      translateY = y;
+      hasTransform = true;
+      return this;
+    }
+
+    /**
+     * Set the scale of the element.
+     *
+     * @param scale the scale factor
+     * @return this keyframe
+     */
+    public Keyframe scale(double scale) {
+      this.scale = scale;
+      hasTransform = true;
+      return this;
+    }
+
+    /**
+     * Set the rotation of the element.
+     *
+     * @param degrees the clockwise rotation in degrees
+     * @return this keyframe
+     */
+    public Keyframe rotate(double degrees) {
+      rotate = degrees;
+      hasTransform = true;
+      return this;
+    }
+
+    /**
+     * Set the opacity of the element.
+     *
+     * @param opacity the opacity, between 0 and 1
+     * @return this keyframe
+     */
+    public Keyframe opacity(double opacity) {
+      this.opacity = opacity;
+      hasOpacity = true;
+      return this;
+    }
+
+    /**
+     * Set the blur of the element.
+     *
+     * @param pixels the radius of the blur in pixels
+     * @return this keyframe
+     */
+    public Keyframe blur(double pixels) {
+      blur = pixels;
+      hasFilter = true;
+      return this;
+    }
+  }
+
+  private final Keyframe[] keyframes;
+  private final boolean hasTransform;
+  private final boolean hasOpacity;
+  private final boolean hasFilter;
+
+  /** The CSS timing function equivalent to the easing, or null if there is none. */
+  private String timingFunction;
+
+  /**
+   * The element of the current run, kept to commit the last keyframe once canceled, and released
+   * once the run ends.
+   */
+  private Element element;
+
+  /** The native animation of the current run, or null if not played by the Web Animations API. */
+  private WebAnimation webAnimation;
+
+  /** The keyframe interpolated for the current update, reused across the updates. */
+  private final Keyframe current = new Keyframe(0);
+
+  /**
+   * Construct a new {@link KeyframeAnimation}.
+   *
+   * @param keyframes the keyframes, at least two, from offset 0 to offset 1 in increasing order
+   */
+  public KeyframeAnimation(Keyframe... keyframes) {
+    this(AnimationScheduler.get(), keyframes);
+  }
+
+  /**
+   * Construct a new {@link KeyframeAnimation} using the specified scheduler to request frames when
+   * the Web Animations API is not used.
+   *
+   * @param scheduler an {@link AnimationScheduler} instance
+   * @param keyframes the keyframes, at least two, from offset 0 to offset 1 in increasing order
+   */
+  protected KeyframeAnimation(AnimationScheduler scheduler, Keyframe... keyframes) {
+    super(scheduler);
+    if (keyframes.length < 2
+        || keyframes[0].offset != 0
+        || keyframes[keyframes.length - 1].offset != 1) {
+      throw new IllegalArgumentException("keyframes must go from offset 0 to offset 1");
+    }
+    boolean hasTransform = false;
+    boolean hasOpacity = false;
+    boolean hasFilter = false;
+    for (int i = 0; i < keyframes.length; i++) {
+      if (i > 0 && keyframes[i].offset < keyframes[i - 1].offset) {
+        throw new IllegalArgumentException("keyframes must be in increasing order of offset");
+      }
+      hasTransform |= keyframes[i].hasTransform;
+      hasOpacity |= keyframes[i].hasOpacity;
+      hasFilter |= keyframes[i].hasFilter;
+    }
+    this.keyframes = keyframes.clone();
+    this.hasTransform = hasTransform;
+    this.hasOpacity = hasOpacity;
+    this.hasFilter = hasFilter;
+    setTimingFunction(0.42, 0, 0.58, 1);
+  }
+
+  /**
+   * Set the easing to a cubic Bézier curve, which the Web Animations API can play. This is the
+   * {@code ease-in-out} curve by default.
+   *
+   * @param x1 the abscissa of the first control point, between 0 and 1
+   * @param y1 the ordinate of the first control point
+   * @param x2 the abscissa of the second control point, between 0 and 1
+   * @param y2 the ordinate of the second control point
+   * @see Easings#cubicBezier(double, double, double, double)
+   */
+  public void setTimingFunction(double x1, double y1, double x2, double y2) {
+    super.setEasing(Easings.cubicBezier(x1, y1, x2, y2));
+    timingFunction =
+        "cubic-bezier("
+            + CssNumbers.format(x1)
+            + ", "
+            + CssNumbers.format(y1)
+            + ", "
+            + CssNumbers.format(x2)
+            + ", "
+            + CssNumbers.format(y2)
+            + ")";
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Only {@link Easings#LINEAR} can be played by the Web Animations API. Other easings select
+   * the fallback; use {@link #setTimingFunction(double, double, double, double)} for cubic Bézier
+   * curves.
+   */
+  @Override
+  public void setEasing(Easing easing) {
+    super.setEasing(easing);
+    timingFunction = easing == Easings.LINEAR ? "linear" : null;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Subclasses overriding this method must call the super implementation, which hands the
+   * keyframes to the Web Animations API if it can play them.
+   */
+  @Override
+  protected void onStart() {
+    element = getRunElement();
+    int duration = getRunDuration();
+    double delay = getRunStartTime() - getScheduler().currentTimeMillis();
+    if (element == null
+        || timingFunction == null
+        || delay + duration <= 0
+        || !Js.asPropertyMap(element).has("animate")) {
+      super.onStart();
+      return;
+    }
+
+    Object[] frames = new Object[keyframes.length];
+    for (int i = 0; i < keyframes.length; i++) {
+      JsPropertyMap<Object> frame = JsPropertyMap.of();
+      frame.set("offset", keyframes[i].offset);
+      if (hasTransform) {
+        frame.set("transform", transform(keyframes[i]));
+      }
+      if (hasOpacity) {
+        frame.set("opacity", CssNumbers.format(keyframes[i].opacity));
+      }
+      if (hasFilter) {
+        frame.set("filter", filter(keyframes[i]));
+      }
+      frames[i] = frame;
+    }
+    JsPropertyMap<Object> options = JsPropertyMap.of();
+    options.set("duration", duration);
+    // Not positive: a late start plays the keyframes from the current time.
+    options.set("delay", delay);
+    options.set("easing", timingFunction);
+
+    WebAnimation animation = Js.<AnimatableElement>uncheckedCast(element).animate(frames, options);
+    webAnimation = animation;
+    animation.onfinish =
+        event -> {
+          if (webAnimation == animation) {
+            complete();
+          }
+        };
+    skipUpdatesUntilEnd();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Subclasses overriding this method must call the super implementation, which commits the last
+   * keyframe and removes the effect of the Web Animations API, if used.
+   */
+  @Override
+  protected void onComplete() {
+    super.onComplete();
+    if (webAnimation != null) {
+      WebAnimation animation = webAnimation;
+      webAnimation = null;
+      animation.onfinish = null;
+      animation.cancel();
+    }
+    element = null;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Subclasses overriding this method must call the super implementation, which releases the
+   * element of the run.
+   */
+  @Override
+  protected void onCancel() {
+    super.onCancel();
+    element = null;
+  }
+
+  /** Apply the keyframes at the specified progress to the style of the element. */
+  @Override
+  protected void onUpdate(double progress) {
+    if (element == null) {
+      return;
+    }
+    // The properties are set by name, as Style has no typed setter for the transform and filter.
+    JsPropertyMap<Object> style = Js.asPropertyMap(element.getStyle());
+    Keyframe frame = between(progress);
+    if (hasTransform) {
+      style.set("transform", transform(frame));
+    }
+    if (hasOpacity) {
+      style.set("opacity", CssNumbers.format(frame.opacity));
+    }
+    if (hasFilter) {
+      style.set("filter", filter(frame));
+    }
+  }
+
+  /**
+   * Returns the transform at the specified progress.
+   *
+   * @param progress the progress of the animation
+   * @return the CSS value of the transform, or null if it is not animated
+   */
+  String getTransform(double progress) {
+    return hasTransform ? transform(between(progress)) : null;
+  }
+
+  /**
+   * Returns the opacity at the specified progress.
+   *
+   * @param progress the progress of the animation
+   * @return the CSS value of the opacity, or null if it is not animated
+   */
+  String getOpacity(double progress) {
+    return hasOpacity ? CssNumbers.format(between(progress).opacity) : null;
+  }
+
+  /**
+   * Returns the filter at the specified progress.
+   *
+   * @param progress the progress of the animation
+   * @return the CSS value of the filter, or null if it is not animated
+   */
+  String getFilter(double progress) {
+    return hasFilter ? filter(between(progress)) : null;
+  }
+
+  /**
+   * Returns the keyframe interpolated between the keyframes surrounding the progress, which is only
+   * valid until the next call.
+   */
+  private Keyframe between(double progress) {
+    int i = 0;
+    while (i < keyframes.length - 2 && progress > keyframes[i + 1].offset) {
+      i++;
+    }
+    Keyframe from = keyframes[i];
+    Keyframe to = keyframes[i + 1];
+    double span = to.offset - from.offset;
+    double t = span == 0 ? 1 : (progress - from.offset) / span;
+
+    Keyframe frame = current;
+    frame.translateX = lerp(from.translateX, to.translateX, t);
+    frame.translateY = lerp(from.translateY, to.translateY, t);
+    frame.scale = lerp(from.scale, to.scale, t);
+    frame.rotate = lerp(from.rotate, to.rotate, t);
+    frame.opacity = lerp(from.opacity, to.opacity, t);
+    frame.blur = lerp(from.blur, to.blur, t);
+    return frame;
+  }
+
+  private static double lerp(double from, double to, double t) {
+    return from + (to - from) * t;
+  }
+
+  private static String transform(Keyframe frame) {
+    return "translate("
+        + CssNumbers.format(frame.translateX)
+        + "px, "
+        + CssNumbers.format(frame.translateY)
+        + "px) scale("
+        + CssNumbers.format(frame.scale)
+        + ") rotate("
+        + CssNumbers.format(frame.rotate)
+        + "deg)";
+  }
+
+  private static String filter(Keyframe frame) {
+    return "blur(" + CssNumbers.format(frame.blur) + "px)";
+  }
+
+  @JsType(isNative = true, namespace = JsPackage.GLOBAL, name = "Element")
+  private static class AnimatableElement {
+    native WebAnimation animate(Object[] keyframes, JsPropertyMap<Object> options);
+  }
+
+  @JsType(isNative = true, namespace = JsPackage.GLOBAL, name = "Animation")
+  private static class WebAnimation {
+    FinishHandler onfinish;
+
+    native void cancel();
+  }
+
+  @JsFunction
+  private interface FinishHandler {
+    void onFinish(Object event);
+  }
+}
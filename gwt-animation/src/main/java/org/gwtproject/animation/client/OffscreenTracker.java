@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import jsinterop.annotations.JsFunction;
+import jsinterop.annotations.JsPackage;
+import jsinterop.annotations.JsType;
+import jsinterop.base.Js;
+import org.gwtproject.dom.client.Element;
+
+/**
+ * Tracks whether the elements of the running {@link Animation}s intersect the viewport, through a
+ * single {@code IntersectionObserver} shared by all the animations.
+ *
+ * <p>Elements are considered visible until the observer reports otherwise. If the browser does not
+ * support {@code IntersectionObserver}, nothing is tracked.
+ */
+final class OffscreenTracker {
+
+  private static OffscreenTracker instance;
+
+  /**
+   * Returns the shared tracker.
+   *
+   * @return the tracker, or null if {@code IntersectionObserver} is not supported
+   */
+  static OffscreenTracker get() {
+    if (instance == null && Js.global().has("IntersectionObserver")) {
+      instance = new OffscreenTracker();
+    }
+    return instance;
+  }
+
+  private final IntersectionObserver observer = new IntersectionObserver(this::onIntersection);
+
+  /** The observed elements. */
+  private final Map<Element, Target> targets = new IdentityHashMap<>();
+
+  private OffscreenTracker() {}
+
+  /**
+   * Start tracking the element of an animation, and notify the animation of its current state.
+   *
+   * @param element the element to track
+   * @param animation the animation to notify
+   */
+  void observe(Element element, Animation animation) {
+    Target target = targets.get(element);
+    if (target == null) {
+      target = new Target();
+      targets.put(element, target);
+      observer.observe(element);
+    }
+    target.animations.add(animation);
+    animation.setOffscreen(target.offscreen);
+  }
+
+  /**
+   * Stop tracking the element of an animation.
+   *
+   * @param element the tracked element
+   * @param animation the animation to stop notifying
+   */
+  void unobserve(Element element, Animation animation) {
+    Target target = targets.get(element);
+    if (target == null) {
+      return;
+    }
+    target.animations.remove(animation);
+    if (target.animations.isEmpty()) {
+      targets.remove(element);
+      observer.unobserve(element);
+    }
+  }
+
+  private void onIntersection(IntersectionObserverEntry[] entries) {
+    for (IntersectionObserverEntry entry : entries) {
+      Target target = targets.get(entry.target);
+      if (target != null) {
+        target.offscreen = !entry.isIntersecting;
+        for (Animation animation : new ArrayList<>(target.animations)) {
+          animation.setOffscreen(target.offscreen);
+        }
+      }
+    }
+  }
+
+  /** An observed element and the animations it bounds. */
+  private static class Target {
+    final List<Animation> animations = new ArrayList<>();
+    boolean offscreen = false;
+  }
+
+  @JsType(isNative = true, namespace = JsPackage.GLOBAL)
+  private static class IntersectionObserver {
+    IntersectionObserver(IntersectionCallback callback) {}
+
+    native void observe(Element target);
+
+    native void unobserve(Element target);
+  }
+
+  @JsFunction
+  private interface IntersectionCallback {
+    void onIntersection(IntersectionObserverEntry[] entries);
+  }
+
+  @JsType(isNative = true, namespace = JsPackage.GLOBAL)
+  private static class IntersectionObserverEntry {
+    boolean isIntersecting;
+    Element target;
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+/**
+ * An {@link Easing} evaluated by linear interpolation in a table of precomputed samples of another
+ * easing. The table is computed on first use, and its first and last samples are exact.
+ */
+final class SampledEasing implements Easing {
+
+  /** The number of intervals between samples. */
+  private static final int INTERVALS = 512;
+
+  private final Easing function;
+
+  private double[] samples;
+
+  SampledEasing(Easing function) {
+    this.function = function;
+  }
+
+  @Override
+  public double ease(double progress) {
+    if (samples == null) {
+      samples = sample(function);
+    }
+    if (progress <= 0) {
+      return samples[0];
+    }
+    if (progress >= 1) {
+      return samples[INTERVALS];
+    }
+    double position = progress * INTERVALS;
+    int index = (int) position;
+    double fraction = position - index;
+    return samples[index] + (samples[index + 1] - samples[index]) * fraction;
+  }
+
+  private static double[] sample(Easing function) {
+    double[] samples = new double[INTERVALS + 1];
+    for (int i = 0; i <= INTERVALS; i++) {
+      samples[i] = function.ease((double) i / INTERVALS);
+    }
+    return samples;
+  }
+}
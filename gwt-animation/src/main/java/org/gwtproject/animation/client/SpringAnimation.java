@@ -0,0 +1,355 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import org.gwtproject.animation.client.AnimationScheduler.AnimationCallback;
+import org.gwtproject.animation.client.AnimationScheduler.AnimationHandle;
+import org.gwtproject.dom.client.Element;
+
+/**
+ * An animation of a value pulled towards a target by a damped spring, rather than over a fixed
+ * duration.
+ *
+ * <p>The spring is simulated with a semi-implicit Euler integrator at a fixed step of one
+ * millisecond, independent of the frame rate, so that the motion is stable and reproducible. The
+ * animation completes as soon as the spring comes to rest, i.e. when both its displacement from the
+ * target and its velocity fall below thresholds: no frame is requested once the motion has visibly
+ * settled.
+ *
+ * <p>This class does not extend {@link Animation}, whose runs have a fixed duration and a progress
+ * from 0 to 1 that a spring does not have: the end of a run is only known when the spring comes to
+ * rest, and its {@link #onUpdate(double)} receives a value rather than a progress. As a
+ * consequence, springs do not get the following features of {@link Animation}:
+ *
+ * <ul>
+ *   <li>they are not listed by the {@link AnimationRegistry};
+ *   <li>their updates are not recorded by the {@link AnimationTracing} nor measured by the {@link
+ *       AnimationTelemetry}, although the frames of a {@link CoalescingAnimationScheduler} running
+ *       them are;
+ *   <li>{@link CoalescingAnimationScheduler.HiddenPolicy#COMPLETE} does not complete them: they are
+ *       suspended while the document is hidden, then resume from where they were, catching up at
+ *       most one second of motion in the first frame;
+ *   <li>they have no deferred start, {@link Animation#setDeferredStart(boolean)}: {@link
+ *       #onStart()} is called by {@link #run(double, double)} itself;
+ *   <li>they are not canceled when their element is detached, {@link
+ *       Animation#setCancelWhenDetached(boolean)}: cancel them explicitly;
+ *   <li>they have no maximum update rate, {@link Animation#setMaxFrameRate(double)}, and update in
+ *       each frame.
+ * </ul>
+ */
+public abstract class SpringAnimation {
+
+  /** The step of the integrator, in milliseconds. */
+  static final double STEP_MILLIS = 1;
+
+  /**
+   * The maximum number of steps simulated per frame. After a longer pause, e.g. in a hidden
+   * document, the spring resumes from where it was rather than catching up.
+   */
+  static final int MAX_STEPS_PER_FRAME = 1000;
+
+  private final AnimationScheduler scheduler;
+
+  private final AnimationCallback callback =
+      new AnimationCallback() {
+        @Override
+        public void execute(double timestamp) {
+          update(timestamp);
+        }
+
+        @Override
+        public boolean isDeferrable() {
+          return true;
+        }
+      };
+
+  private double stiffness = 170;
+  private double damping = 26;
+  private double mass = 1;
+  private double restDisplacement = 0.01;
+  private double restVelocity = 1;
+
+  private double value;
+  private double velocity;
+  private double target;
+
+  /** The time up to which the spring has been simulated. */
+  private double simulatedTime;
+
+  private Element element;
+  private boolean isRunning = false;
+  private AnimationHandle requestHandle;
+
+  /** Construct a new {@link SpringAnimation}. */
+  public SpringAnimation() {
+    this(AnimationScheduler.get());
+  }
+
+  /**
+   * Construct a new {@link SpringAnimation} using the specified scheduler to request frames.
+   *
+   * @param scheduler an {@link AnimationScheduler} instance
+   */
+  protected SpringAnimation(AnimationScheduler scheduler) {
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Returns the stiffness of the spring.
+   *
+   * @return the stiffness, 170 by default
+   */
+  public double getStiffness() {
+    return stiffness;
+  }
+
+  /**
+   * Set the stiffness of the spring: the force pulling the value towards the target, per unit of
+   * displacement.
+   *
+   * @param stiffness the stiffness, positive
+   */
+  public void setStiffness(double stiffness) {
+    if (!(stiffness > 0)) {
+      throw new IllegalArgumentException("stiffness must be positive: " + stiffness);
+    }
+    this.stiffness = stiffness;
+  }
+
+  /**
+   * Returns the damping of the spring.
+   *
+   * @return the damping, 26 by default
+   */
+  public double getDamping() {
+    return damping;
+  }
+
+  /**
+   * Set the damping of the spring: the force opposing the motion, per unit of velocity. The spring
+   * oscillates below {@code 2 * sqrt(stiffness * mass)}.
+   *
+   * @param damping the damping, not negative
+   */
+  public void setDamping(double damping) {
+    if (!(damping >= 0)) {
+      throw new IllegalArgumentException("damping must not be negative: " + damping);
+    }
+    this.damping = damping;
+  }
+
+  /**
+   * Returns the mass attached to the spring.
+   *
+   * @return the mass, 1 by default
+   */
+  public double getMass() {
+    return mass;
+  }
+
+  /**
+   * Set the mass attached to the spring.
+   *
+   * @param mass the mass, positive
+   */
+  public void setMass(double mass) {
+    if (!(mass > 0)) {
+      throw new IllegalArgumentException("mass must be positive: " + mass);
+    }
+    this.mass = mass;
+  }
+
+  /**
+   * Returns the displacement from the target under which the spring may be at rest.
+   *
+   * @return the displacement, 0.01 by default
+   */
+  public double getRestDisplacement() {
+    return restDisplacement;
+  }
+
+  /**
+   * Returns the velocity under which the spring may be at rest.
+   *
+   * @return the velocity in units per second, 1 by default
+   */
+  public double getRestVelocity() {
+    return restVelocity;
+  }
+
+  /**
+   * Set the thresholds under which the spring is at rest, in the units of the animated value. The
+   * defaults suit values in pixels.
+   *
+   * @param restDisplacement the displacement from the target, positive
+   * @param restVelocity the velocity in units per second, positive
+   */
+  public void setRestThresholds(double restDisplacement, double restVelocity) {
+    if (!(restDisplacement > 0) || !(restVelocity > 0)) {
+      throw new IllegalArgumentException(
+          "thresholds must be positive: " + restDisplacement + ", " + restVelocity);
+    }
+    this.restDisplacement = restDisplacement;
+    this.restVelocity = restVelocity;
+  }
+
+  /**
+   * Immediately run this animation from rest. If the animation is already running, it will be
+   * canceled first.
+   *
+   * @param from the start value
+   * @param to the target value
+   */
+  public void run(double from, double to) {
+    run(from, to, 0, null);
+  }
+
+  /**
+   * Immediately run this animation. If the animation is already running, it will be canceled first.
+   *
+   * <p>If the element is not <code>null</code>, the {@link #onUpdate(double)} method might be
+   * called only if the element may be visible (generally left at the appreciation of the browser).
+   * Otherwise, it will be called unconditionally.
+   *
+   * @param from the start value
+   * @param to the target value
+   * @param velocity the initial velocity, in units per second
+   * @param element the element that visually bounds the entire animation
+   */
+  public void run(double from, double to, double velocity, Element element) {
+    cancel();
+    this.value = from;
+    this.target = to;
+    this.velocity = velocity;
+    this.element = element;
+    this.simulatedTime = scheduler.currentTimeMillis();
+    isRunning = true;
+    onStart();
+    if (isRunning && requestHandle == null) {
+      requestHandle = scheduler.requestAnimationFrame(callback, element);
+    }
+  }
+
+  /**
+   * Immediately cancel this animation, leaving the value where it is. If the animation is not
+   * running, do nothing.
+   */
+  public void cancel() {
+    if (!isRunning) {
+      return;
+    }
+    stop();
+    onCancel();
+  }
+
+  /**
+   * Returns true if the animation is running.
+   *
+   * @return true if running, false if not
+   */
+  public boolean isRunning() {
+    return isRunning;
+  }
+
+  /**
+   * Returns the current value.
+   *
+   * @return the value
+   */
+  public double getValue() {
+    return value;
+  }
+
+  /**
+   * Returns the current velocity.
+   *
+   * @return the velocity in units per second
+   */
+  public double getVelocity() {
+    return velocity;
+  }
+
+  /**
+   * Returns the target value.
+   *
+   * @return the target
+   */
+  public double getTarget() {
+    return target;
+  }
+
+  /** Called immediately before the animation starts. The default calls {@link #onUpdate}. */
+  protected void onStart() {
+    onUpdate(value);
+  }
+
+  /**
+   * Called when the value should be updated.
+   *
+   * @param value the value
+   */
+  protected abstract void onUpdate(double value);
+
+  /**
+   * Called when the spring comes to rest, once the value has been set to the target. The default
+   * calls {@link #onUpdate}.
+   */
+  protected void onComplete() {
+    onUpdate(value);
+  }
+
+  /** Called immediately after the animation is canceled. The default does nothing. */
+  protected void onCancel() {}
+
+  private void stop() {
+    isRunning = false;
+    element = null;
+    if (requestHandle != null) {
+      requestHandle.cancel();
+      requestHandle = null;
+    }
+  }
+
+  /** Simulate the spring up to the timestamp of a frame. */
+  private void update(double timestamp) {
+    requestHandle = null;
+    // The timestamp of a frame may precede the time the run started at: never simulate backwards.
+    int steps = Math.max(0, (int) ((timestamp - simulatedTime) / STEP_MILLIS));
+    if (steps > MAX_STEPS_PER_FRAME) {
+      simulatedTime = timestamp - MAX_STEPS_PER_FRAME * STEP_MILLIS;
+      steps = MAX_STEPS_PER_FRAME;
+    }
+    double dt = STEP_MILLIS / 1000;
+    for (int i = 0; i < steps; i++) {
+      double force = -stiffness * (value - target) - damping * velocity;
+      velocity += force / mass * dt;
+      value += velocity * dt;
+    }
+    simulatedTime += steps * STEP_MILLIS;
+
+    if (Math.abs(value - target) < restDisplacement && Math.abs(velocity) < restVelocity) {
+      value = target;
+      velocity = 0;
+      stop();
+      onComplete();
+      return;
+    }
+    onUpdate(value);
+    if (isRunning && requestHandle == null) {
+      requestHandle = scheduler.requestAnimationFrame(callback, element);
+    }
+  }
+}
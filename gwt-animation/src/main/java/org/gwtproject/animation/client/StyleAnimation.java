@@ -0,0 +1,319 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import elemental2.dom.CSSStyleDeclaration;
+import java.util.ArrayList;
+import java.util.List;
+import jsinterop.base.Js;
+import org.gwtproject.dom.client.Element;
+
+/**
+ * An {@link Animation} of numeric style properties of an element, such as {@code left}, {@code
+ * top}, {@code opacity}, and the components of its {@code transform}.
+ *
+ * <p>The style is written in the {@link #onMutate(double) mutate phase} of the frames, once per
+ * property, and the transform components are merged into a single {@code transform} write. Each
+ * value is rounded, to 2 decimals for lengths and angles and 3 decimals otherwise, and a property
+ * is only formatted and written when its rounded value changed since the previous frame, so that
+ * slow animations neither produce strings nor touch the style on most frames.
+ */
+public class StyleAnimation extends Animation {
+
+  private static final int LENGTH_DECIMALS = 2;
+  private static final int NUMBER_DECIMALS = 3;
+
+  /** A tweened style property. */
+  private static final class Property {
+    final String name;
+    final String unit;
+    final int decimals;
+    double from;
+    double to;
+
+    /** The quantized value last written, or NaN if not written in this run. */
+    double written = Double.NaN;
+
+    Property(String name, String unit, int decimals) {
+      this.name = name;
+      this.unit = unit;
+      this.decimals = decimals;
+    }
+
+    /** Returns the quantized value at the specified progress. */
+    double quantize(double progress) {
+      return CssNumbers.quantize(from + (to - from) * progress, decimals);
+    }
+  }
+
+  private final Element element;
+  private final List<Property> properties = new ArrayList<>();
+
+  private Property translateX;
+  private Property translateY;
+  private Property scale;
+  private Property rotate;
+
+  /**
+   * Construct a new {@link StyleAnimation}.
+   *
+   * @param element the element whose style is animated
+   */
+  public StyleAnimation(Element element) {
+    this(AnimationScheduler.get(), element);
+  }
+
+  /**
+   * Construct a new {@link StyleAnimation} using the specified scheduler to request frames.
+   *
+   * @param scheduler an {@link AnimationScheduler} instance
+   * @param element the element whose style is animated
+   */
+  protected StyleAnimation(AnimationScheduler scheduler, Element element) {
+    super(scheduler);
+    this.element = element;
+  }
+
+  /**
+   * Animate the {@code left} property.
+   *
+   * @param from the start value in pixels
+   * @param to the end value in pixels
+   * @return this animation
+   */
+  public StyleAnimation left(double from, double to) {
+    return property("left", from, to, "px");
+  }
+
+  /**
+   * Animate the {@code top} property.
+   *
+   * @param from the start value in pixels
+   * @param to the end value in pixels
+   * @return this animation
+   */
+  public StyleAnimation top(double from, double to) {
+    return property("top", from, to, "px");
+  }
+
+  /**
+   * Animate the {@code width} property.
+   *
+   * @param from the start value in pixels
+   * @param to the end value in pixels
+   * @return this animation
+   */
+  public StyleAnimation width(double from, double to) {
+    return property("width", from, to, "px");
+  }
+
+  /**
+   * Animate the {@code height} property.
+   *
+   * @param from the start value in pixels
+   * @param to the end value in pixels
+   * @return this animation
+   */
+  public StyleAnimation height(double from, double to) {
+    return property("height", from, to, "px");
+  }
+
+  /**
+   * Animate the {@code opacity} property.
+   *
+   * @param from the start value
+   * @param to the end value
+   * @return this animation
+   */
+  public StyleAnimation opacity(double from, double to) {
+    return property("opacity", from, to, "");
+  }
+
+  /**
+   * Animate a numeric style property. Animating a property again replaces its previous values.
+   *
+   * @param name the name of the property, in CSS syntax, e.g. {@code margin-left}
+   * @param from the start value
+   * @param to the end value
+   * @param unit the unit appended to the values, e.g. {@code px}, or an empty string
+   * @return this animation
+   */
+  public StyleAnimation property(String name, double from, double to, String unit) {
+    for (Property property : properties) {
+      if (property.name.equals(name)) {
+        properties.remove(property);
+        break;
+      }
+    }
+    Property property = newProperty(name, unit, from, to);
+    properties.add(property);
+    return this;
+  }
+
+  /**
+   * Animate the translation in the {@code transform} property.
+   *
+   * @param fromX the start horizontal translation in pixels
+   * @param fromY the start vertical translation in pixels
+   * @param toX the end horizontal translation in pixels
+   * @param toY the end vertical translation in pixels
+   * @return this animation
+   */
+  public StyleAnimation translate(double fromX, double fromY, double toX, double toY) {
+    translateX = newProperty("translateX", "px", fromX, toX);
+    translateY = newProperty("translateY", "px", fromY, toY);
+    return this;
+  }
+
+  /**
+   * Animate the scale in the {@code transform} property.
+   *
+   * @param from the start scale factor
+   * @param to the end scale factor
+   * @return this animation
+   */
+  public StyleAnimation scale(double from, double to) {
+    scale = newProperty("scale", "", from, to);
+    return this;
+  }
+
+  /**
+   * Animate the rotation in the {@code transform} property.
+   *
+   * @param from the start clockwise rotation in degrees
+   * @param to the end clockwise rotation in degrees
+   * @return this animation
+   */
+  public StyleAnimation rotate(double from, double to) {
+    rotate = newProperty("rotate", "deg", from, to);
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Every property is written in the first frame of a run, even if its value did not change
+   * since the previous run: subclasses overriding this method must call it.
+   */
+  @Override
+  protected void onStart() {
+    for (Property property : properties) {
+      property.written = Double.NaN;
+    }
+    forgetWritten(translateX);
+    forgetWritten(translateY);
+    forgetWritten(scale);
+    forgetWritten(rotate);
+    super.onStart();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The end values are written immediately, as {@link #cancel()} does not run the phases of the
+   * frame; the {@link #onMutate(double) mutate phase} of the last frame then finds them unchanged.
+   */
+  @Override
+  protected void onComplete() {
+    onMutate(interpolate(1.0));
+  }
+
+  /** The style is written in {@link #onMutate(double)}. */
+  @Override
+  protected void onUpdate(double progress) {}
+
+  /** Write the properties whose rounded value changed to the style of the element. */
+  @Override
+  protected void onMutate(double progress) {
+    for (int i = 0; i < properties.size(); i++) {
+      Property property = properties.get(i);
+      double value = property.quantize(progress);
+      if (value != property.written) {
+        property.written = value;
+        setStyle(property.name, format(property));
+      }
+    }
+
+    if (translateX == null && scale == null && rotate == null) {
+      return;
+    }
+    // Quantize every component before comparing, so that none is left behind.
+    boolean changed = updateWritten(translateX, progress);
+    changed |= updateWritten(translateY, progress);
+    changed |= updateWritten(scale, progress);
+    changed |= updateWritten(rotate, progress);
+    if (changed) {
+      StringBuilder transform = new StringBuilder();
+      if (translateX != null) {
+        transform.append("translate(").append(format(translateX));
+        transform.append(", ").append(format(translateY)).append(')');
+      }
+      if (scale != null) {
+        transform.append(transform.length() > 0 ? " scale(" : "scale(");
+        transform.append(format(scale)).append(')');
+      }
+      if (rotate != null) {
+        transform.append(transform.length() > 0 ? " rotate(" : "rotate(");
+        transform.append(format(rotate)).append(')');
+      }
+      setStyle("transform", transform.toString());
+    }
+  }
+
+  /**
+   * Set a style property of the element.
+   *
+   * @param name the name of the property, in CSS syntax
+   * @param value the value
+   */
+  void setStyle(String name, String value) {
+    if (element != null) {
+      Js.<CSSStyleDeclaration>uncheckedCast(element.getStyle()).setProperty(name, value);
+    }
+  }
+
+  private static Property newProperty(String name, String unit, double from, double to) {
+    Property property =
+        new Property(name, unit, unit.isEmpty() ? NUMBER_DECIMALS : LENGTH_DECIMALS);
+    property.from = from;
+    property.to = to;
+    return property;
+  }
+
+  private static void forgetWritten(Property property) {
+    if (property != null) {
+      property.written = Double.NaN;
+    }
+  }
+
+  /** Quantize a transform component, and return true if it changed. */
+  private static boolean updateWritten(Property property, double progress) {
+    if (property == null) {
+      return false;
+    }
+    double value = property.quantize(progress);
+    if (value == property.written) {
+      return false;
+    }
+    property.written = value;
+    return true;
+  }
+
+  /** Format the value last written of a property, with its unit. */
+  private static String format(Property property) {
+    return CssNumbers.format(property.written, property.decimals) + property.unit;
+  }
+}
@@ -0,0 +1,516 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import java.util.Arrays;
+import org.gwtproject.animation.client.AnimationScheduler.AnimationCallback;
+import org.gwtproject.animation.client.AnimationScheduler.AnimationHandle;
+
+/**
+ * Animates large numbers of numeric values, such as the positions of the marks of a chart.
+ *
+ * <p>Unlike an {@link Animation}, a tween is not an object: the tweens are stored in primitive
+ * arrays, advanced together in a single loop by a single {@link AnimationCallback} per frame, and
+ * their values are reported to a {@link Listener} in a single batch. Finished tweens are compacted
+ * out of the arrays, which only grow when more tweens are running than ever before, so that a frame
+ * allocates nothing. While all the tweens are waiting for their start time, the engine requests a
+ * single frame at the earliest start time rather than one frame per vsync.
+ *
+ * <p>Each tween is identified by a key chosen by the caller, such as the index of a mark. The
+ * tweens are independent: starting a tween does not cancel the tweens with the same key.
+ */
+public class TweenEngine {
+
+  /** Receives the values of the tweens at each frame. */
+  public interface Listener {
+    /**
+     * Called at each frame with the values of all the running tweens, in no particular order. The
+     * arrays are owned by the engine and only valid during the call.
+     *
+     * @param keys the keys of the tweens, in the first {@code count} elements
+     * @param values the values of the tweens, in the first {@code count} elements
+     * @param count the number of tweens
+     */
+    void onUpdate(int[] keys, double[] values, int count);
+
+    /**
+     * Called after {@link #onUpdate(int[], double[], int)} with the tweens which reached their end
+     * value in the frame, and are removed from the engine. The default implementation does nothing.
+     *
+     * @param keys the keys of the tweens, in the first {@code count} elements
+     * @param count the number of tweens
+     */
+    default void onComplete(int[] keys, int count) {}
+  }
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final AnimationScheduler scheduler;
+  private final Listener listener;
+
+  private final AnimationCallback callback =
+      new AnimationCallback() {
+        @Override
+        public void execute(double timestamp) {
+          frame(timestamp);
+        }
+
+        @Override
+        public boolean isDeferrable() {
+          return true;
+        }
+      };
+
+  /** The easings of the tweens, referenced by index. The slots of unused easings are null. */
+  private Easing[] easings = new Easing[0];
+
+  /** The number of running tweens using each easing. */
+  private int[] easingUses = new int[0];
+
+  private int[] keys = new int[INITIAL_CAPACITY];
+  private double[] startTimes = new double[INITIAL_CAPACITY];
+  private double[] durations = new double[INITIAL_CAPACITY];
+  private double[] froms = new double[INITIAL_CAPACITY];
+  private double[] tos = new double[INITIAL_CAPACITY];
+  private int[] easingIndexes = new int[INITIAL_CAPACITY];
+  private double[] values = new double[INITIAL_CAPACITY];
+  private int[] completedKeys = new int[INITIAL_CAPACITY];
+
+  /** The previous and next slots of the tweens with the same key, or -1. */
+  private int[] previousWithKey = new int[INITIAL_CAPACITY];
+
+  private int[] nextWithKey = new int[INITIAL_CAPACITY];
+
+  /** The slot of the last started tween of each key, so that canceling is O(1). */
+  private final SlotIndex slotsByKey = new SlotIndex();
+
+  /** The number of running tweens. */
+  private int count = 0;
+
+  /** The number of tweens advanced by the frame being dispatched, or 0 outside frames. */
+  private int frameCount = 0;
+
+  /** Is a frame being dispatched, including the call to {@link Listener#onComplete}. */
+  private boolean isDispatching = false;
+
+  /** The earliest start time of the tweens started during the frame being dispatched. */
+  private double earliestStartedInFrame;
+
+  private AnimationHandle requestHandle;
+
+  /** The time the requested frame is not needed before, or negative infinity for the next one. */
+  private double requestedTime;
+
+  /**
+   * Construct a new {@link TweenEngine}.
+   *
+   * @param listener the listener receiving the values of the tweens
+   */
+  public TweenEngine(Listener listener) {
+    this(AnimationScheduler.get(), listener);
+  }
+
+  /**
+   * Construct a new {@link TweenEngine} using the specified scheduler to request frames.
+   *
+   * @param scheduler an {@link AnimationScheduler} instance
+   * @param listener the listener receiving the values of the tweens
+   */
+  protected TweenEngine(AnimationScheduler scheduler, Listener listener) {
+    if (listener == null) {
+      throw new NullPointerException("listener must not be null");
+    }
+    this.scheduler = scheduler;
+    this.listener = listener;
+  }
+
+  /**
+   * Start a tween now, with the {@link Easings#SAMPLED_COSINE} easing.
+   *
+   * @param key the key of the tween
+   * @param from the start value
+   * @param to the end value
+   * @param duration the duration of the tween in milliseconds
+   */
+  public void tween(int key, double from, double to, int duration) {
+    tween(key, from, to, duration, scheduler.currentTimeMillis(), Easings.SAMPLED_COSINE);
+  }
+
+  /**
+   * Start a tween at the given start time. Until then, the tween keeps its start value.
+   *
+   * @param key the key of the tween
+   * @param from the start value
+   * @param to the end value
+   * @param duration the duration of the tween in milliseconds
+   * @param startTime the start time in milliseconds, in the timebase of {@link
+   *     AnimationScheduler#currentTimeMillis()}
+   * @param easing the easing of the tween, an instance shared by many tweens rather than one
+   *     created for each
+   */
+  public void tween(
+      int key, double from, double to, int duration, double startTime, Easing easing) {
+    if (easing == null) {
+      throw new NullPointerException("easing must not be null");
+    }
+    if (count == keys.length) {
+      grow();
+    }
+    keys[count] = key;
+    froms[count] = from;
+    tos[count] = to;
+    durations[count] = duration;
+    startTimes[count] = startTime;
+    int easingIndex = indexOf(easing);
+    easingIndexes[count] = easingIndex;
+    easingUses[easingIndex]++;
+    values[count] = from;
+    link(count);
+    count++;
+
+    if (isDispatching) {
+      // The next frame is requested at the end of the frame.
+      earliestStartedInFrame = Math.min(earliestStartedInFrame, startTime);
+    } else {
+      if (requestHandle == null) {
+        requestFrame(startTime);
+      } else if (startTime < requestedTime) {
+        requestHandle.cancel();
+        requestFrame(startTime);
+      }
+    }
+  }
+
+  /**
+   * Cancel the last started running tween with the given key, without reporting it as complete.
+   *
+   * @param key the key of the tween
+   * @return true if a tween was canceled
+   */
+  public boolean cancel(int key) {
+    int slot = slotsByKey.get(key);
+    if (slot < 0) {
+      return false;
+    }
+    remove(slot);
+    return true;
+  }
+
+  /** Cancel all the running tweens, without reporting them as complete. */
+  public void cancelAll() {
+    count = 0;
+    frameCount = 0;
+    Arrays.fill(easings, null);
+    Arrays.fill(easingUses, 0);
+    slotsByKey.clear();
+    if (requestHandle != null) {
+      requestHandle.cancel();
+      requestHandle = null;
+    }
+  }
+
+  /**
+   * Returns the number of running tweens.
+   *
+   * @return the number of tweens
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * Returns true if any tween is running.
+   *
+   * @return true if running, false if not
+   */
+  public boolean isRunning() {
+    return count > 0;
+  }
+
+  /** Advance all the tweens to the timestamp of a frame. */
+  private void frame(double timestamp) {
+    requestHandle = null;
+    frameCount = count;
+    isDispatching = true;
+    earliestStartedInFrame = Double.POSITIVE_INFINITY;
+    // If the listener throws, request the next frame rather than one at the next start time.
+    double nextStartTime = Double.NEGATIVE_INFINITY;
+    try {
+      for (int i = 0; i < frameCount; i++) {
+        double progress = (timestamp - startTimes[i]) / durations[i];
+        if (!(progress < 1)) {
+          // Also covers the tweens of zero duration, whose progress is NaN or infinite.
+          progress = timestamp < startTimes[i] ? 0 : 1;
+        } else if (progress < 0) {
+          progress = 0;
+        }
+        values[i] = froms[i] + (tos[i] - froms[i]) * easings[easingIndexes[i]].ease(progress);
+      }
+      listener.onUpdate(keys, values, frameCount);
+
+      // Compact the completed tweens out, keeping the tweens started during the frame.
+      int completed = 0;
+      int write = 0;
+      double earliest = Double.POSITIVE_INFINITY;
+      for (int read = 0; read < count; read++) {
+        if (read < frameCount && timestamp >= startTimes[read] + durations[read]) {
+          completedKeys[completed++] = keys[read];
+          releaseEasing(easingIndexes[read]);
+          unlink(read);
+        } else {
+          if (write != read) {
+            move(read, write);
+          }
+          earliest = Math.min(earliest, startTimes[write]);
+          write++;
+        }
+      }
+      count = write;
+      nextStartTime = earliest > timestamp ? earliest : Double.NEGATIVE_INFINITY;
+      frameCount = 0;
+      if (completed > 0) {
+        listener.onComplete(completedKeys, completed);
+      }
+    } finally {
+      frameCount = 0;
+      isDispatching = false;
+      if (count > 0 && requestHandle == null) {
+        requestFrame(Math.min(nextStartTime, earliestStartedInFrame));
+      }
+    }
+  }
+
+  /**
+   * Request a frame for a tween starting at the given time: the next frame if the tween has already
+   * started, or a frame at its start time otherwise.
+   */
+  private void requestFrame(double startTime) {
+    if (startTime > scheduler.currentTimeMillis()) {
+      requestedTime = startTime;
+      requestHandle = scheduler.requestAnimationFrameAt(callback, null, startTime);
+    } else {
+      requestedTime = Double.NEGATIVE_INFINITY;
+      requestHandle = scheduler.requestAnimationFrame(callback);
+    }
+  }
+
+  /**
+   * Remove the tween at the given slot, replacing it with the last tween. During a frame, the
+   * tweens advanced by the frame stay before those started during the frame.
+   */
+  private void remove(int slot) {
+    releaseEasing(easingIndexes[slot]);
+    unlink(slot);
+    if (slot < frameCount) {
+      frameCount--;
+      if (slot != frameCount) {
+        move(frameCount, slot);
+      }
+      slot = frameCount;
+    }
+    count--;
+    if (slot != count) {
+      move(count, slot);
+    }
+    if (count == 0 && requestHandle != null) {
+      requestHandle.cancel();
+      requestHandle = null;
+    }
+  }
+
+  private void move(int from, int to) {
+    keys[to] = keys[from];
+    startTimes[to] = startTimes[from];
+    durations[to] = durations[from];
+    froms[to] = froms[from];
+    tos[to] = tos[from];
+    easingIndexes[to] = easingIndexes[from];
+    values[to] = values[from];
+    int previous = previousWithKey[from];
+    int next = nextWithKey[from];
+    previousWithKey[to] = previous;
+    nextWithKey[to] = next;
+    if (next >= 0) {
+      previousWithKey[next] = to;
+    } else {
+      slotsByKey.put(keys[to], to);
+    }
+    if (previous >= 0) {
+      nextWithKey[previous] = to;
+    }
+  }
+
+  /** Make the tween at the given slot the last started tween of its key. */
+  private void link(int slot) {
+    int previous = slotsByKey.get(keys[slot]);
+    previousWithKey[slot] = previous;
+    nextWithKey[slot] = -1;
+    if (previous >= 0) {
+      nextWithKey[previous] = slot;
+    }
+    slotsByKey.put(keys[slot], slot);
+  }
+
+  /** Remove the tween at the given slot from the tweens of its key. */
+  private void unlink(int slot) {
+    int previous = previousWithKey[slot];
+    int next = nextWithKey[slot];
+    if (next >= 0) {
+      previousWithKey[next] = previous;
+    } else if (previous >= 0) {
+      slotsByKey.put(keys[slot], previous);
+    } else {
+      slotsByKey.remove(keys[slot]);
+    }
+    if (previous >= 0) {
+      nextWithKey[previous] = next;
+    }
+  }
+
+  private void grow() {
+    int capacity = keys.length * 2;
+    keys = Arrays.copyOf(keys, capacity);
+    startTimes = Arrays.copyOf(startTimes, capacity);
+    durations = Arrays.copyOf(durations, capacity);
+    froms = Arrays.copyOf(froms, capacity);
+    tos = Arrays.copyOf(tos, capacity);
+    easingIndexes = Arrays.copyOf(easingIndexes, capacity);
+    values = Arrays.copyOf(values, capacity);
+    completedKeys = Arrays.copyOf(completedKeys, capacity);
+    previousWithKey = Arrays.copyOf(previousWithKey, capacity);
+    nextWithKey = Arrays.copyOf(nextWithKey, capacity);
+  }
+
+  /** Returns the index of an easing, registering it in a free slot if needed. */
+  private int indexOf(Easing easing) {
+    int free = -1;
+    for (int i = 0; i < easings.length; i++) {
+      if (easings[i] == easing) {
+        return i;
+      }
+      if (free < 0 && easings[i] == null) {
+        free = i;
+      }
+    }
+    if (free < 0) {
+      free = easings.length;
+      easings = Arrays.copyOf(easings, free + 1);
+      easingUses = Arrays.copyOf(easingUses, free + 1);
+    }
+    easings[free] = easing;
+    return free;
+  }
+
+  /** Release a use of an easing, freeing its slot once no tween uses it. */
+  private void releaseEasing(int index) {
+    if (--easingUses[index] == 0) {
+      easings[index] = null;
+    }
+  }
+
+  /**
+   * A map from the keys of the tweens to slots, with open addressing in primitive arrays so that
+   * updating it allocates nothing, unlike a map of boxed integers.
+   */
+  private static final class SlotIndex {
+    private int[] keys = new int[INITIAL_CAPACITY * 2];
+
+    /** The slots, or -1 for the free entries. */
+    private int[] slots = newSlots(INITIAL_CAPACITY * 2);
+
+    private int size = 0;
+
+    /** Returns the slot of a key, or -1 if none. */
+    int get(int key) {
+      for (int i = indexOf(key); ; i = (i + 1) & (keys.length - 1)) {
+        if (slots[i] < 0) {
+          return -1;
+        } else if (keys[i] == key) {
+          return slots[i];
+        }
+      }
+    }
+
+    void put(int key, int slot) {
+      int i = indexOf(key);
+      while (slots[i] >= 0 && keys[i] != key) {
+        i = (i + 1) & (keys.length - 1);
+      }
+      if (slots[i] < 0) {
+        if (2 * (size + 1) > keys.length) {
+          rehash(keys.length * 2);
+          put(key, slot);
+          return;
+        }
+        size++;
+        keys[i] = key;
+      }
+      slots[i] = slot;
+    }
+
+    void remove(int key) {
+      int mask = keys.length - 1;
+      int i = indexOf(key);
+      while (keys[i] != key || slots[i] < 0) {
+        if (slots[i] < 0) {
+          return;
+        }
+        i = (i + 1) & mask;
+      }
+      // Shift back the following entries of the cluster, so that no lookup stops at the hole.
+      for (int j = (i + 1) & mask; slots[j] >= 0; j = (j + 1) & mask) {
+        int home = indexOf(keys[j]);
+        if (((j - home) & mask) >= ((j - i) & mask)) {
+          keys[i] = keys[j];
+          slots[i] = slots[j];
+          i = j;
+        }
+      }
+      slots[i] = -1;
+      size--;
+    }
+
+    void clear() {
+      Arrays.fill(slots, -1);
+      size = 0;
+    }
+
+    private int indexOf(int key) {
+      int hash = key ^ (key >>> 16);
+      hash ^= hash >>> 7;
+      return hash & (keys.length - 1);
+    }
+
+    private void rehash(int capacity) {
+      int[] oldKeys = keys;
+      int[] oldSlots = slots;
+      keys = new int[capacity];
+      slots = newSlots(capacity);
+      size = 0;
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldSlots[i] >= 0) {
+          put(oldKeys[i], oldSlots[i]);
+        }
+      }
+    }
+
+    private static int[] newSlots(int capacity) {
+      int[] slots = new int[capacity];
+      Arrays.fill(slots, -1);
+      return slots;
+    }
+  }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright © 2020 The GWT Project Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gwtproject.animation.client;
+
+import org.gwtproject.dom.client.Element;
+
+/**
+ * An {@link Animation} of a value between two numbers, which can be {@link #retarget(double, int)
+ * retargeted} while running.
+ *
+ * <p>Retargeting changes the destination and the remaining duration in place: the animation is not
+ * canceled, so {@link #onCancel()} and {@link #onComplete()} are not called, and the next frame is
+ * requested without waiting for a throttled update. The value continues from where it is, at the
+ * velocity it had, and eases into the new destination.
+ *
+ * <p>The easing is applied by this class rather than by {@link #interpolate(double)}, which returns
+ * the linear progress: {@link #onUpdate(double)} receives the linear progress, and the value is
+ * passed to {@link #onUpdateValue(double)}. The timing of a run is captured by {@link #onStart()},
+ * so that it also holds for a {@linkplain #setDeferredStart(boolean) deferred start}: subclasses
+ * overriding it must call the super implementation.
+ */
+public abstract class ValueAnimation extends Animation {
+
+  /** The step of the progress used to differentiate the value and the easing. */
+  private static final double EPSILON = 1e-4;
+
+  private double from;
+  private double to;
+
+  /**
+   * The coefficient of the term {@code p * (1 - p)^2} added to the eased value, which sets the
+   * initial velocity of a retargeted run without changing its end.
+   */
+  private double velocityTerm;
+
+  /** The start time and duration of the current run, or of its last retargeting. */
+  private double startTime;
+
+  private int duration;
+
+  private double value;
+
+  /** Construct a new {@link ValueAnimation}. */
+  public ValueAnimation() {
+    this(AnimationScheduler.get());
+  }
+
+  /**
+   * Construct a new {@link ValueAnimation} using the specified scheduler to request frames.
+   *
+   * @param scheduler an {@link AnimationScheduler} instance
+   */
+  protected ValueAnimation(AnimationScheduler scheduler) {
+    super(scheduler);
+  }
+
+  /**
+   * Immediately run this animation. If the animation is already running, it will be canceled first.
+   *
+   * @param from the start value
+   * @param to the end value
+   * @param duration the duration of the animation in milliseconds
+   * @see #retarget(double, int)
+   */
+  public void run(double from, double to, int duration) {
+    run(from, to, duration, null);
+  }
+
+  /**
+   * Immediately run this animation. If the animation is already running, it will be canceled first.
+   *
+   * @param from the start value
+   * @param to the end value
+   * @param duration the duration of the animation in milliseconds
+   * @param element the element that visually bounds the entire animation
+   * @see #retarget(double, int)
+   */
+  public void run(double from, double to, int duration, Element element) {
+    // Cancel first, as canceling updates the value of the previous run.
+    cancel();
+    this.from = from;
+    this.to = to;
+    this.velocityTerm = 0;
+    this.value = from;
+    run(duration, element);
+  }
+
+  /**
+   * Change the destination of this animation, continuing from its current value and velocity. If
+   * the animation is not running, or has not started yet, run it from its current value instead.
+   *
+   * @param to the new end value
+   * @param duration the new remaining duration in milliseconds
+   */
+  public void retarget(double to, int duration) {
+    if (!isRunStarted()) {
+      run(value, to, duration);
+      return;
+    }
+    double now = getScheduler().currentTimeMillis();
+
+    // The current value and velocity, per millisecond.
+    double progress = this.duration > 0 ? Math.min((now - startTime) / this.duration, 1) : 1;
+    double currentValue = valueAt(progress);
+    double velocity = velocityAt(progress);
+
+    this.from = currentValue;
+    this.to = to;
+    this.value = currentValue;
+    this.startTime = now;
+    this.duration = duration;
+    if (duration > 0) {
+      // Subtract the initial velocity of the easing itself from the velocity to preserve.
+      Easing easing = getEasing();
+      double easingVelocity = (easing.ease(EPSILON) - easing.ease(0)) / EPSILON;
+      velocityTerm = velocity * duration - (to - currentValue) * easingVelocity;
+    } else {
+      velocityTerm = 0;
+    }
+    retime(duration, now);
+  }
+
+  /**
+   * Returns the value last passed to {@link #onUpdateValue(double)}.
+   *
+   * @return the value
+   */
+  public double getValue() {
+    return value;
+  }
+
+  /**
+   * Returns the end value of the current run.
+   *
+   * @return the end value
+   */
+  public double getTarget() {
+    return to;
+  }
+
+  /**
+   * Returns the linear progress: the easing is applied when computing the value.
+   *
+   * @param progress the linear progress, between 0.0 and 1.0
+   * @return the same progress
+   */
+  @Override
+  protected double interpolate(double progress) {
+    return progress;
+  }
+
+  /** Capture the timing of the run, then update the value to the start value. */
+  @Override
+  protected void onStart() {
+    startTime = getRunStartTime();
+    duration = getRunDuration();
+    super.onStart();
+  }
+
+  /**
+   * Compute the value at the specified linear progress, and pass it to {@link
+   * #onUpdateValue(double)}.
+   */
+  @Override
+  protected void onUpdate(double progress) {
+    value = valueAt(progress);
+    onUpdateValue(value);
+  }
+
+  /**
+   * Called when the value should be updated.
+   *
+   * @param value the value
+   */
+  protected abstract void onUpdateValue(double value);
+
+  private double valueAt(double progress) {
+    double rest = 1 - progress;
+    return from + (to - from) * getEasing().ease(progress) + velocityTerm * progress * rest * rest;
+  }
+
+  /** Returns the velocity at the specified progress, in units per millisecond. */
+  private double velocityAt(double progress) {
+    if (duration <= 0) {
+      return 0;
+    }
+    double before = Math.max(progress - EPSILON, 0);
+    double after = Math.min(progress + EPSILON, 1);
+    return (valueAt(after) - valueAt(before)) / ((after - before) * duration);
+  }
+}
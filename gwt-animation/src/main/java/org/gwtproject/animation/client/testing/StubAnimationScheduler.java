@@ -18,17 +18,48 @@ package org.gwtproject.animation.client.testing;
 import java.util.ArrayList;
 import java.util.List;
 import org.gwtproject.animation.client.AnimationScheduler;
+import org.gwtproject.core.client.Duration;
 import org.gwtproject.dom.client.Element;
 
 /**
  * A stub implementation of {@link AnimationScheduler} that does not execute the callbacks. Use
  * {@link StubAnimationScheduler#getAnimationCallbacks()} to retrieve and execute callbacks
  * manually.
+ *
+ * <p>The scheduler also runs on a virtual clock, returned by {@link #currentTimeMillis()}, which
+ * only advances through {@link #advanceBy(double)}, {@link #runFrames(int, double)} and {@link
+ * #runUntilIdle()}. The latter two execute the callbacks as frames would, so that animations can be
+ * tested deterministically, without waiting for the wall clock.
  */
 public class StubAnimationScheduler extends AnimationScheduler {
 
+  /** The duration of the frames run by {@link #runUntilIdle()}, in milliseconds. */
+  public static final double FRAME_MILLIS = 16;
+
+  /** The maximum number of frames run by {@link #runUntilIdle()}. */
+  public static final int MAX_IDLE_FRAMES = 100000;
+
   private final List<AnimationCallback> callbacks = new ArrayList<>();
 
+  /** The callbacks of the frame being run, where the canceled ones are set to null. */
+  private final List<AnimationCallback> frame = new ArrayList<>();
+
+  private double currentTime;
+
+  /** Construct a new {@link StubAnimationScheduler}, whose clock starts at the current time. */
+  public StubAnimationScheduler() {
+    this(Duration.currentTimeMillis());
+  }
+
+  /**
+   * Construct a new {@link StubAnimationScheduler}, whose clock starts at the specified time.
+   *
+   * @param currentTime the initial time of the clock, in milliseconds
+   */
+  public StubAnimationScheduler(double currentTime) {
+    this.currentTime = currentTime;
+  }
+
   /**
    * Get the list of all animation callbacks that have been requested and have not been canceled.
    *
@@ -38,6 +69,79 @@ public class StubAnimationScheduler extends AnimationScheduler {
     return callbacks;
   }
 
+  /**
+   * Returns the time of the virtual clock.
+   *
+   * @return the current time in milliseconds
+   */
+  @Override
+  public double currentTimeMillis() {
+    return currentTime;
+  }
+
+  /**
+   * Advance the virtual clock, without executing any callback.
+   *
+   * @param millis the time to advance by, in milliseconds
+   */
+  public void advanceBy(double millis) {
+    if (millis < 0) {
+      throw new IllegalArgumentException("millis must not be negative: " + millis);
+    }
+    currentTime += millis;
+  }
+
+  /**
+   * Run frames: for each frame, advance the virtual clock, then execute the callbacks requested
+   * before the frame with the time of the clock. The callbacks requested during a frame are
+   * executed in the next one.
+   *
+   * @param count the number of frames to run
+   * @param frameMillis the duration of each frame, in milliseconds
+   */
+  public void runFrames(int count, double frameMillis) {
+    for (int i = 0; i < count; i++) {
+      advanceBy(frameMillis);
+      runFrame();
+    }
+  }
+
+  /**
+   * Run frames of {@link #FRAME_MILLIS} until no callback is requested anymore.
+   *
+   * @return the number of frames run
+   * @throws IllegalStateException if callbacks are still requested after {@link #MAX_IDLE_FRAMES}
+   *     frames, e.g. by an animation that never completes
+   */
+  public int runUntilIdle() {
+    int count = 0;
+    while (!callbacks.isEmpty()) {
+      if (count == MAX_IDLE_FRAMES) {
+        throw new IllegalStateException(
+            "Still busy after " + MAX_IDLE_FRAMES + " frames: " + callbacks.size() + " callbacks");
+      }
+      runFrames(1, FRAME_MILLIS);
+      count++;
+    }
+    return count;
+  }
+
+  private void runFrame() {
+    frame.addAll(callbacks);
+    callbacks.clear();
+    try {
+      for (int i = 0; i < frame.size(); i++) {
+        AnimationCallback callback = frame.get(i);
+        if (callback != null) {
+          frame.set(i, null);
+          callback.execute(currentTime);
+        }
+      }
+    } finally {
+      frame.clear();
+    }
+  }
+
   @Override
   public StubAnimationHandle requestAnimationFrame(AnimationCallback callback, Element element) {
     callbacks.add(callback);
@@ -58,7 +162,13 @@ public class StubAnimationScheduler extends AnimationScheduler {
 
     @Override
     public void cancel() {
-      callbacks.remove(callback);
+      if (!callbacks.remove(callback)) {
+        // The callback may be waiting in the frame being run.
+        int index = frame.indexOf(callback);
+        if (index >= 0) {
+          frame.set(index, null);
+        }
+      }
     }
   }
 }